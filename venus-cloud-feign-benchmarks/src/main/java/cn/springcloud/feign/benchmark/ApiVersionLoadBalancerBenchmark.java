@@ -0,0 +1,190 @@
+package cn.springcloud.feign.benchmark;
+
+import cn.springcloud.feign.VenusApiVersionLoadBalancer;
+import cn.springcloud.feign.VenusApiVersionRouting;
+import com.netflix.client.config.CommonClientConfigKey;
+import com.netflix.client.config.DefaultClientConfigImpl;
+import com.netflix.loadbalancer.ConfigurationBasedServerList;
+import com.netflix.loadbalancer.DummyPing;
+import com.netflix.loadbalancer.DynamicServerListLoadBalancer;
+import com.netflix.loadbalancer.PollingServerListUpdater;
+import com.netflix.loadbalancer.RoundRobinRule;
+import com.netflix.loadbalancer.Server;
+import feign.Client;
+import feign.Request;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cloud.netflix.ribbon.ServerIntrospector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VenusApiVersionLoadBalancer} 选择实例的耗时, 与原负载均衡器对比. 实例来自静态的 listOfServers, 版本由 stub 的
+ * {@link ServerIntrospector} 提供; 初始化时先检查选择结果: 声明了版本的实例优先, 没有时选择未声明版本的实例,
+ * 都没有时按原负载均衡器选择, 不带版本的请求与原负载均衡器的选择一致, 不符合时初始化失败.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiVersionLoadBalancerBenchmark {
+
+    /**
+     * contract 写入方法模板的版本请求头, 见 VenusApiVersionRouting.VERSION_HEADER
+     */
+    private static final String VERSION_HEADER = "Venus-Api-Version";
+
+    private static final String SERVERS = "v2-a:8080,v2-b:8080,v1:8080,plain:8080";
+
+    private static final Map<String, String> VERSIONS = new HashMap<>();
+
+    static {
+        VERSIONS.put("v2-a", "v2, v1");
+        VERSIONS.put("v2-b", "v2");
+        VERSIONS.put("v1", "v1");
+    }
+
+    private static final Request.Options OPTIONS = new Request.Options();
+
+    private final List<DynamicServerListLoadBalancer<Server>> delegates = new ArrayList<>();
+
+    private DynamicServerListLoadBalancer<Server> raw;
+
+    private VenusApiVersionLoadBalancer balancer;
+
+    private Client client;
+
+    private Server chosen;
+
+    private Request v2;
+
+    private Request unversioned;
+
+    @Setup
+    public void setUp() throws IOException {
+        raw = delegate(SERVERS);
+        balancer = wrap(delegate(SERVERS));
+        client = routed(balancer);
+        v2 = request("v2");
+        unversioned = request(null);
+
+        check("matched", choose(client, v2, 8), "v2-a", "v2-b");
+        check("unversioned", choose(client, request("v3"), 8), "plain");
+        Client versionedOnly = routed(wrap(delegate("v2-a:8080,v2-b:8080,v1:8080")));
+        check("fallback", choose(versionedOnly, request("v3"), 6), "v2-a", "v2-b", "v1");
+
+        // 不带版本的请求与同样配置的原负载均衡器按相同顺序轮询
+        DynamicServerListLoadBalancer<Server> twin = delegate(SERVERS);
+        Client plain = routed(wrap(delegate(SERVERS)));
+        for (int i = 0; i < 8; i++) {
+            Server expected = twin.chooseServer(null);
+            plain.execute(unversioned, OPTIONS);
+            if (!expected.equals(chosen)) {
+                throw new IllegalStateException("request without version chose " + chosen + ", expected " + expected);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (DynamicServerListLoadBalancer<Server> delegate : delegates) {
+            delegate.shutdown();
+        }
+    }
+
+    /**
+     * 原负载均衡器
+     */
+    @Benchmark
+    public Server raw() {
+        return raw.chooseServer(null);
+    }
+
+    /**
+     * 不带版本的请求, 直接交给原负载均衡器
+     */
+    @Benchmark
+    public Server unversioned() throws IOException {
+        client.execute(unversioned, OPTIONS);
+        return chosen;
+    }
+
+    /**
+     * 带版本的请求, 按实例元数据过滤后轮询
+     */
+    @Benchmark
+    public Server versioned() throws IOException {
+        client.execute(v2, OPTIONS);
+        return chosen;
+    }
+
+    private DynamicServerListLoadBalancer<Server> delegate(String listOfServers) {
+        DefaultClientConfigImpl config = DefaultClientConfigImpl.getClientConfigWithDefaultValues("orders");
+        config.set(CommonClientConfigKey.ListOfServers, listOfServers);
+        ConfigurationBasedServerList serverList = new ConfigurationBasedServerList();
+        serverList.initWithNiwsConfig(config);
+        DynamicServerListLoadBalancer<Server> delegate = new DynamicServerListLoadBalancer<>(config,
+                new RoundRobinRule(), new DummyPing(), serverList, null, new PollingServerListUpdater(config));
+        delegates.add(delegate);
+        return delegate;
+    }
+
+    private static VenusApiVersionLoadBalancer wrap(DynamicServerListLoadBalancer<Server> delegate) {
+        ServerIntrospector introspector = new ServerIntrospector() {
+            @Override
+            public boolean isSecure(Server server) {
+                return false;
+            }
+
+            @Override
+            public Map<String, String> getMetadata(Server server) {
+                String versions = VERSIONS.get(server.getHost());
+                return versions == null ? Collections.emptyMap() : Collections.singletonMap("api-versions", versions);
+            }
+        };
+        return new VenusApiVersionLoadBalancer(delegate, introspector, "api-versions", delegate.getClientConfig());
+    }
+
+    /**
+     * 经过 {@link VenusApiVersionRouting} 在负载均衡器中选择实例, 选中的实例记录在 chosen
+     */
+    private Client routed(VenusApiVersionLoadBalancer balancer) {
+        return new VenusApiVersionRouting().decorate((request, options) -> {
+            chosen = balancer.chooseServer(null);
+            return null;
+        });
+    }
+
+    private Set<String> choose(Client client, Request request, int times) throws IOException {
+        Set<String> hosts = new HashSet<>();
+        for (int i = 0; i < times; i++) {
+            client.execute(request, OPTIONS);
+            hosts.add(chosen.getHost());
+        }
+        return hosts;
+    }
+
+    private static void check(String name, Set<String> hosts, String... expected) {
+        if (!hosts.equals(new HashSet<>(Arrays.asList(expected)))) {
+            throw new IllegalStateException(name + " selection chose " + hosts + ", expected " + Arrays.toString(expected));
+        }
+    }
+
+    private static Request request(String version) {
+        Map<String, Collection<String>> headers = version == null
+                ? Collections.<String, Collection<String>>emptyMap()
+                : Collections.<String, Collection<String>>singletonMap(VERSION_HEADER, Collections.singletonList(version));
+        return Request.create("GET", "http://orders/orders", headers, null, null);
+    }
+}
@@ -0,0 +1,157 @@
+package cn.springcloud.feign.benchmark;
+
+import cn.springcloud.feign.VenusFeignAutoConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.bind.support.ConfigurableWebBindingInitializer;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.HandlerMethodArgumentResolverComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletRequestDataBinderFactory;
+
+import javax.servlet.http.Cookie;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * provider 端参数解析: 接口上的 PathVariable/RequestHeader/CookieValue, @Valid @RequestBody,
+ * 以及 GET 方法 POJO 参数的 query 绑定(venus.feign.query-binder 与默认的 ModelAttribute)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArgumentResolverBenchmark {
+
+    private HandlerMethodArgumentResolverComposite venusResolvers;
+
+    private HandlerMethodArgumentResolverComposite defaultResolvers;
+
+    private WebDataBinderFactory binderFactory;
+
+    private MethodParameter[] owner;
+
+    private MethodParameter create;
+
+    private MethodParameter query;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("objectMapper", objectMapper);
+        GenericApplicationContext context = new GenericApplicationContext(beanFactory);
+        context.refresh();
+
+        LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+        validator.afterPropertiesSet();
+        ConfigurableWebBindingInitializer initializer = new ConfigurableWebBindingInitializer();
+        initializer.setConversionService(new DefaultFormattingConversionService());
+        initializer.setValidator(validator);
+
+        RequestMappingHandlerAdapter adapter = new RequestMappingHandlerAdapter();
+        adapter.setMessageConverters(Collections.singletonList(new MappingJackson2HttpMessageConverter(objectMapper)));
+        adapter.setWebBindingInitializer(initializer);
+        adapter.setApplicationContext(context);
+        adapter.setBeanFactory(beanFactory);
+        adapter.afterPropertiesSet();
+        defaultResolvers = new HandlerMethodArgumentResolverComposite().addResolvers(adapter.getArgumentResolvers());
+
+        VenusFeignAutoConfig config = new VenusFeignAutoConfig();
+        inject(config, "adapter", adapter);
+        inject(config, "beanFactory", beanFactory);
+        inject(config, "queryBinder", true);
+        config.modifyArgumentResolvers();
+        venusResolvers = new HandlerMethodArgumentResolverComposite().addResolvers(adapter.getArgumentResolvers());
+
+        binderFactory = new ServletRequestDataBinderFactory(null, initializer);
+
+        OrderController controller = new OrderController();
+        owner = new HandlerMethod(controller, OrderController.class.getMethod("owner", Long.class, String.class,
+                String.class)).getMethodParameters();
+        for (MethodParameter parameter : owner) {
+            // 与 InvocableHandlerMethod 一致
+            parameter.initParameterNameDiscovery(new DefaultParameterNameDiscoverer());
+        }
+        create = new HandlerMethod(controller, OrderController.class.getMethod("create",
+                Payloads.Nested.class)).getMethodParameters()[0];
+        query = new HandlerMethod(controller, OrderController.class.getMethod("query",
+                Payloads.Nested.class)).getMethodParameters()[0];
+        body = objectMapper.writeValueAsBytes(Payloads.create(Payloads.NESTED));
+    }
+
+    @Benchmark
+    public Object[] pathHeaderCookie() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/order/1024/owner");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Collections.singletonMap("id", "1024"));
+        request.addHeader("X-Tenant", "venus");
+        request.setCookies(new Cookie("session", "2f1c0b7e"));
+        NativeWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+        ModelAndViewContainer mavContainer = new ModelAndViewContainer();
+        Object[] args = new Object[owner.length];
+        for (int i = 0; i < owner.length; i++) {
+            args[i] = venusResolvers.resolveArgument(owner[i], mavContainer, webRequest, binderFactory);
+        }
+        return args;
+    }
+
+    @Benchmark
+    public Object requestBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/order/");
+        request.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        request.setContent(body);
+        return venusResolvers.resolveArgument(create, new ModelAndViewContainer(),
+                new ServletWebRequest(request, new MockHttpServletResponse()), binderFactory);
+    }
+
+    @Benchmark
+    public Object queryBinder() throws Exception {
+        return venusResolvers.resolveArgument(query, new ModelAndViewContainer(),
+                new ServletWebRequest(queryRequest(), new MockHttpServletResponse()), binderFactory);
+    }
+
+    @Benchmark
+    public Object modelAttribute() throws Exception {
+        return defaultResolvers.resolveArgument(query, new ModelAndViewContainer(),
+                new ServletWebRequest(queryRequest(), new MockHttpServletResponse()), binderFactory);
+    }
+
+    private static MockHttpServletRequest queryRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/order/query");
+        request.addParameter("id", "1024");
+        request.addParameter("owner.name", "venus-1");
+        request.addParameter("owner.age", "19");
+        request.addParameter("address.city", "Shanghai");
+        request.addParameter("address.street", "Century Avenue 100");
+        request.addParameter("address.geo.lat", "31.2304");
+        request.addParameter("address.geo.lng", "121.4737");
+        return request;
+    }
+
+    private static void inject(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,145 @@
+package cn.springcloud.feign.benchmark;
+
+import cn.springcloud.feign.VenusHttp2Client;
+import cn.springcloud.feign.VenusSpringMvcContract;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Client;
+import feign.Feign;
+import feign.Retryer;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.http2.Http2Protocol;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地 provider 上同时发出 fanOut 个调用时 HTTP/1.1(Client.Default)和 {@link VenusHttp2Client}(h2c)的耗时,
+ * 结束时在日志中记录 provider 看到的客户端连接数. http2 需要在 JDK 11+ 上运行, 否则该组参数初始化失败.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class Http2TransportBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Http2TransportBenchmark.class);
+
+    private static final byte[] RESPONSE = "[]".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"http1", "http2"})
+    public String transport;
+
+    @Param({"200"})
+    public int fanOut;
+
+    @Param({"2"})
+    public int latencyMillis;
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private Tomcat server;
+
+    private ExecutorService executor;
+
+    private OrderClient client;
+
+    @Setup
+    public void setUp() throws IOException, LifecycleException {
+        if ("http2".equals(transport) && !VenusHttp2Client.isAvailable()) {
+            throw new IllegalStateException("HTTP/2 transport requires JDK 11+");
+        }
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(fanOut, r -> new Thread(r, "fan-out-" + count.incrementAndGet()));
+
+        server = new Tomcat();
+        server.setBaseDir(Files.createTempDirectory("http2-tomcat").toString());
+        server.setPort(0);
+        Connector connector = server.getConnector();
+        connector.setAttribute("maxThreads", fanOut * 2);
+        connector.setAttribute("acceptCount", fanOut * 2);
+        Http2Protocol http2 = new Http2Protocol();
+        http2.setMaxConcurrentStreams(fanOut);
+        connector.addUpgradeProtocol(http2);
+        Context context = server.addContext("", null);
+        Tomcat.addServlet(context, "provider", new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                clientPorts.add(request.getRemotePort());
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                response.setContentType("application/json");
+                response.setContentLength(RESPONSE.length);
+                response.getOutputStream().write(RESPONSE);
+            }
+        });
+        context.addServletMappingDecoded("/*", "provider");
+        server.start();
+
+        // 单连接上的 stream 数与 fanOut 一致
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Collections.singletonMap("venus.feign.http2-max-streams", fanOut)));
+        Client transport = "http2".equals(this.transport) ? new VenusHttp2Client(environment) : new Client.Default(null, null);
+        ObjectMapper objectMapper = new ObjectMapper();
+        client = Feign.builder()
+                .client(transport)
+                .contract(new VenusSpringMvcContract(Collections.emptyList(), new DefaultConversionService()))
+                .decoder((response, type) -> objectMapper.readValue(response.body().asInputStream(),
+                        objectMapper.getTypeFactory().constructType(type)))
+                .retryer(Retryer.NEVER_RETRY)
+                .target(OrderClient.class, "http://127.0.0.1:" + connector.getLocalPort());
+    }
+
+    @TearDown
+    public void tearDown() throws LifecycleException {
+        LOGGER.info("{} connections: {}", transport, clientPorts.size());
+        executor.shutdownNow();
+        server.stop();
+        server.destroy();
+    }
+
+    /**
+     * 同时发出 fanOut 个调用并等待全部返回
+     */
+    @Benchmark
+    public int fanOut() throws Exception {
+        List<Callable<Integer>> calls = new ArrayList<>(fanOut);
+        for (int i = 0; i < fanOut; i++) {
+            calls.add(() -> client.search("hangzhou", 0, 20).size());
+        }
+        int total = 0;
+        for (Future<Integer> future : executor.invokeAll(calls)) {
+            total += future.get();
+        }
+        return total;
+    }
+}
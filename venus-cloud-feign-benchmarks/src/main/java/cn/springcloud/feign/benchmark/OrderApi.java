@@ -0,0 +1,24 @@
+package cn.springcloud.feign.benchmark;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.List;
+
+/**
+ * provider 端参数解析压测使用的接口, 注解只写在接口上
+ */
+@FeignClient(name = "order-api", path = "/order")
+public interface OrderApi {
+
+    @GetMapping("/{id}/owner")
+    Payloads.Small owner(@PathVariable("id") Long id, @RequestHeader("X-Tenant") String tenant,
+                         @CookieValue("session") String session);
+
+    @PostMapping("/")
+    Long create(@Valid @RequestBody Payloads.Nested order);
+
+    @GetMapping("/query")
+    List<Payloads.Nested> query(Payloads.Nested condition);
+}
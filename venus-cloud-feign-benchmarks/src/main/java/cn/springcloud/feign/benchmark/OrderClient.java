@@ -0,0 +1,64 @@
+package cn.springcloud.feign.benchmark;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 契约解析压测使用的接口, 覆盖常见的参数注解组合
+ */
+@FeignClient(name = "order", path = "/order")
+public interface OrderClient {
+
+    @GetMapping("/{id}")
+    Payloads.Nested get(@PathVariable("id") Long id);
+
+    @GetMapping("/{id}/owner")
+    Payloads.Small owner(@PathVariable("id") Long id, @RequestHeader("X-Tenant") String tenant);
+
+    @GetMapping("/search")
+    List<Payloads.Nested> search(@RequestParam("city") String city, @RequestParam("page") int page,
+                                 @RequestParam("size") int size);
+
+    @GetMapping("/query")
+    List<Payloads.Nested> query(Payloads.Small condition);
+
+    @GetMapping("/tags")
+    List<String> tags(@RequestParam("ids") List<Integer> ids);
+
+    @GetMapping("/map")
+    Map<String, Object> map(@RequestParam Map<String, Object> params);
+
+    @PostMapping("/")
+    Long create(@RequestBody Payloads.Nested order);
+
+    @PutMapping("/{id}")
+    void update(@PathVariable("id") Long id, @RequestBody Payloads.Nested order);
+
+    @PatchMapping(value = "/{id}/address", consumes = "application/json", produces = "application/json")
+    void address(@PathVariable("id") Long id, @RequestBody Payloads.Address address);
+
+    @DeleteMapping("/{id}")
+    void delete(@PathVariable("id") Long id, @RequestHeader("X-Operator") String operator);
+
+    @PostMapping("/batch")
+    List<Long> batch(@RequestBody List<Payloads.Nested> orders, @RequestParam("async") boolean async);
+
+    @GetMapping(value = "/export", headers = "Accept=text/csv")
+    String export(@RequestParam("from") String from, @RequestParam("to") String to);
+
+    @RequestMapping(value = "/{id}/items/{item}", method = RequestMethod.GET)
+    Payloads.Small item(@PathVariable("id") Long id, @PathVariable("item") Integer item);
+
+    @GetMapping("/array")
+    Payloads.ArrayHeavy array(Payloads.ArrayHeavy condition);
+
+    @PostMapping("/{id}/tags")
+    void addTags(@PathVariable("id") Long id, @RequestBody List<String> tags,
+                 @RequestHeader("X-Operator") String operator);
+
+    @GetMapping("/count")
+    long count(@RequestParam("city") String city);
+}
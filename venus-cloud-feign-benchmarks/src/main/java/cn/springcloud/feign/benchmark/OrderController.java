@@ -0,0 +1,25 @@
+package cn.springcloud.feign.benchmark;
+
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.List;
+
+@RestController
+public class OrderController implements OrderApi {
+
+    @Override
+    public Payloads.Small owner(Long id, String tenant, String session) {
+        return null;
+    }
+
+    @Override
+    public Long create(Payloads.Nested order) {
+        return order.getId();
+    }
+
+    @Override
+    public List<Payloads.Nested> query(Payloads.Nested condition) {
+        return Collections.singletonList(condition);
+    }
+}
@@ -0,0 +1,203 @@
+package cn.springcloud.feign.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * GET 方法的 POJO 参数样本
+ */
+public final class Payloads {
+
+    public static final String SMALL = "small";
+
+    public static final String NESTED = "nested";
+
+    public static final String ARRAY = "array";
+
+    private Payloads() {
+    }
+
+    public static Object create(String payload) {
+        switch (payload) {
+            case SMALL:
+                return small(0);
+            case NESTED:
+                Nested nested = new Nested();
+                nested.setId(1024L);
+                nested.setOwner(small(1));
+                Address address = new Address();
+                address.setCity("Shanghai");
+                address.setStreet("Century Avenue 100");
+                Geo geo = new Geo();
+                geo.setLat(31.2304);
+                geo.setLng(121.4737);
+                address.setGeo(geo);
+                nested.setAddress(address);
+                return nested;
+            case ARRAY:
+                ArrayHeavy array = new ArrayHeavy();
+                for (int i = 0; i < 50; i++) {
+                    array.getIds().add(i * 31);
+                }
+                for (int i = 0; i < 20; i++) {
+                    array.getTags().add("tag-" + i);
+                }
+                for (int i = 0; i < 10; i++) {
+                    array.getItems().add(small(i));
+                }
+                return array;
+            default:
+                throw new IllegalArgumentException(payload);
+        }
+    }
+
+    private static Small small(int i) {
+        Small small = new Small();
+        small.setName("venus-" + i);
+        small.setAge(18 + i);
+        small.setBirthday(new Date(1514764800000L + i));
+        return small;
+    }
+
+    public static class Small {
+        private String name;
+        private Integer age;
+        private Date birthday;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+
+        public Date getBirthday() {
+            return birthday;
+        }
+
+        public void setBirthday(Date birthday) {
+            this.birthday = birthday;
+        }
+    }
+
+    public static class Nested {
+        private Long id;
+        private Small owner;
+        private Address address;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Small getOwner() {
+            return owner;
+        }
+
+        public void setOwner(Small owner) {
+            this.owner = owner;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+    }
+
+    public static class Address {
+        private String city;
+        private String street;
+        private Geo geo;
+
+        public String getCity() {
+            return city;
+        }
+
+        public void setCity(String city) {
+            this.city = city;
+        }
+
+        public String getStreet() {
+            return street;
+        }
+
+        public void setStreet(String street) {
+            this.street = street;
+        }
+
+        public Geo getGeo() {
+            return geo;
+        }
+
+        public void setGeo(Geo geo) {
+            this.geo = geo;
+        }
+    }
+
+    public static class Geo {
+        private double lat;
+        private double lng;
+
+        public double getLat() {
+            return lat;
+        }
+
+        public void setLat(double lat) {
+            this.lat = lat;
+        }
+
+        public double getLng() {
+            return lng;
+        }
+
+        public void setLng(double lng) {
+            this.lng = lng;
+        }
+    }
+
+    public static class ArrayHeavy {
+        private List<Integer> ids = new ArrayList<>();
+        private List<String> tags = new ArrayList<>();
+        private List<Small> items = new ArrayList<>();
+
+        public List<Integer> getIds() {
+            return ids;
+        }
+
+        public void setIds(List<Integer> ids) {
+            this.ids = ids;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public List<Small> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Small> items) {
+            this.items = items;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package cn.springcloud.feign.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * 压测入口, 参数与 JMH 命令行一致, 默认开启 GC profiler 统计分配速率, 结果写入 target/jmh-result.json 便于版本间对比
+ * <pre>
+ * mvn -pl venus-cloud-feign-benchmarks -am package -DskipTests
+ * java -jar venus-cloud-feign-benchmarks/target/benchmarks.jar [regexp]
+ * </pre>
+ */
+public final class VenusBenchmarks {
+
+    private VenusBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+        boolean gc = false;
+        for (ProfilerConfig profiler : commandLine.getProfilers()) {
+            gc |= profiler.getKlass().equals("gc") || profiler.getKlass().equals(GCProfiler.class.getName());
+        }
+        if (!gc) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result("target/jmh-result.json").resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(builder.build()).run();
+    }
+}
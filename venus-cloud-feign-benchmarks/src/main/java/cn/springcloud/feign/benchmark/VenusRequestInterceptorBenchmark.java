@@ -0,0 +1,83 @@
+package cn.springcloud.feign.benchmark;
+
+import cn.springcloud.feign.VenusQueryEncoder;
+import cn.springcloud.feign.VenusRequestInterceptor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.RequestTemplate;
+import feign.codec.Encoder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET 方法 POJO 转 query: json body 经 {@link VenusRequestInterceptor} 反解析, 以及 {@link VenusQueryEncoder} 直接展开
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VenusRequestInterceptorBenchmark {
+
+    @Param({Payloads.SMALL, Payloads.NESTED, Payloads.ARRAY})
+    public String payload;
+
+    private ObjectMapper objectMapper;
+
+    private VenusRequestInterceptor interceptor;
+
+    private VenusQueryEncoder encoder;
+
+    private Object pojo;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper();
+        interceptor = new VenusRequestInterceptor();
+        Field field = ReflectionUtils.findField(VenusRequestInterceptor.class, "objectMapper");
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, interceptor, objectMapper);
+        encoder = new VenusQueryEncoder(new Encoder.Default(), objectMapper);
+        pojo = Payloads.create(payload);
+        body = objectMapper.writeValueAsBytes(pojo);
+    }
+
+    /**
+     * 只有拦截器反解析 json body
+     */
+    @Benchmark
+    public RequestTemplate interceptor() {
+        RequestTemplate template = new RequestTemplate().method("GET");
+        template.body(body, StandardCharsets.UTF_8);
+        interceptor.apply(template);
+        return template;
+    }
+
+    /**
+     * 默认链路: 序列化成 json body 再由拦截器反解析
+     */
+    @Benchmark
+    public RequestTemplate serializeAndIntercept() throws JsonProcessingException {
+        RequestTemplate template = new RequestTemplate().method("GET");
+        template.body(objectMapper.writeValueAsBytes(pojo), StandardCharsets.UTF_8);
+        interceptor.apply(template);
+        return template;
+    }
+
+    /**
+     * venus.feign.direct-query-encoding 开启后的链路
+     */
+    @Benchmark
+    public RequestTemplate directEncoder() {
+        RequestTemplate template = new RequestTemplate().method("GET");
+        encoder.encode(pojo, pojo.getClass(), template);
+        return template;
+    }
+}
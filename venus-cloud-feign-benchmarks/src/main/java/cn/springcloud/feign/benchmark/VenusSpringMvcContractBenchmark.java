@@ -0,0 +1,51 @@
+package cn.springcloud.feign.benchmark;
+
+import cn.springcloud.feign.VenusSpringMvcContract;
+import feign.MethodMetadata;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 契约解析: 反射解析、编译期生成的解析结果, 以及同一个 contract 再次解析(共享缓存)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VenusSpringMvcContractBenchmark {
+
+    private DefaultConversionService conversionService;
+
+    private VenusSpringMvcContract cached;
+
+    @Setup
+    public void setUp() {
+        conversionService = new DefaultConversionService();
+        cached = new VenusSpringMvcContract(Collections.emptyList(), conversionService);
+        cached.parseAndValidatateMetadata(OrderClient.class);
+    }
+
+    @Benchmark
+    public List<MethodMetadata> reflective() {
+        VenusSpringMvcContract contract = new VenusSpringMvcContract(Collections.emptyList(), conversionService);
+        contract.setPrecompiled(false);
+        return contract.parseAndValidatateMetadata(OrderClient.class);
+    }
+
+    @Benchmark
+    public List<MethodMetadata> precompiled() {
+        VenusSpringMvcContract contract = new VenusSpringMvcContract(Collections.emptyList(), conversionService);
+        return contract.parseAndValidatateMetadata(OrderClient.class);
+    }
+
+    @Benchmark
+    public List<MethodMetadata> cached() {
+        return cached.parseAndValidatateMetadata(OrderClient.class);
+    }
+}
@@ -0,0 +1,145 @@
+package cn.springcloud.feign.benchmark;
+
+import cn.springcloud.feign.VenusRequestInterceptor;
+import cn.springcloud.feign.VenusSpringMvcContract;
+import cn.springcloud.feign.VenusVirtualThreads;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Feign;
+import feign.Retryer;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.ReflectionUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 高扇出下同步 feign 调用(含 {@link VenusRequestInterceptor} 把 GET 方法的 POJO 转 query)分别运行在平台线程池和虚拟线程上的耗时.
+ * 平台线程池大小与 tomcat 默认的 200 个请求线程一致; 本地 provider 每个请求延迟 latencyMillis.
+ * virtual 需要在 JDK 21+ 上运行, 否则该组参数初始化失败.
+ * 1 核机器上 JDK 21.0.1 的结果见 README, CPU 为瓶颈时 virtual 更慢.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VirtualThreadFanOutBenchmark {
+
+    private static final byte[] RESPONSE = "[]".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"1000"})
+    public int fanOut;
+
+    @Param({"10"})
+    public int latencyMillis;
+
+    private Tomcat server;
+
+    private ExecutorService executor;
+
+    private OrderClient client;
+
+    private Payloads.Small condition;
+
+    @Setup
+    public void setUp() throws IOException, LifecycleException {
+        if ("virtual".equals(threads)) {
+            executor = VenusVirtualThreads.newExecutor("fan-out-");
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(200, r -> new Thread(r, "fan-out-" + count.incrementAndGet()));
+        }
+
+        // provider 的线程数大于 fanOut, 不成为瓶颈
+        server = new Tomcat();
+        server.setBaseDir(Files.createTempDirectory("fan-out-tomcat").toString());
+        server.setPort(0);
+        Connector connector = server.getConnector();
+        connector.setAttribute("maxThreads", fanOut * 2);
+        connector.setAttribute("acceptCount", fanOut * 2);
+        Context context = server.addContext("", null);
+        Tomcat.addServlet(context, "provider", new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                response.setContentType("application/json");
+                response.setContentLength(RESPONSE.length);
+                response.getOutputStream().write(RESPONSE);
+            }
+        });
+        context.addServletMappingDecoded("/*", "provider");
+        server.start();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        VenusRequestInterceptor interceptor = new VenusRequestInterceptor();
+        Field field = ReflectionUtils.findField(VenusRequestInterceptor.class, "objectMapper");
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, interceptor, objectMapper);
+        client = Feign.builder()
+                .contract(new VenusSpringMvcContract(Collections.emptyList(), new DefaultConversionService()))
+                // 与 SpringEncoder 一样把 POJO 写成 json body, 由拦截器转成 query
+                .encoder((object, bodyType, template) -> {
+                    try {
+                        template.body(objectMapper.writeValueAsBytes(object), StandardCharsets.UTF_8);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .decoder((response, type) -> objectMapper.readValue(response.body().asInputStream(),
+                        objectMapper.getTypeFactory().constructType(type)))
+                .requestInterceptor(interceptor)
+                .retryer(Retryer.NEVER_RETRY)
+                .target(OrderClient.class, "http://127.0.0.1:" + connector.getLocalPort());
+        condition = (Payloads.Small) Payloads.create(Payloads.SMALL);
+    }
+
+    @TearDown
+    public void tearDown() throws LifecycleException {
+        executor.shutdownNow();
+        server.stop();
+        server.destroy();
+    }
+
+    /**
+     * 同时发出 fanOut 个调用并等待全部返回
+     */
+    @Benchmark
+    public int fanOut() throws Exception {
+        List<Callable<Integer>> calls = new ArrayList<>(fanOut);
+        for (int i = 0; i < fanOut; i++) {
+            calls.add(() -> client.query(condition).size());
+        }
+        int total = 0;
+        for (Future<Integer> future : executor.invokeAll(calls)) {
+            total += future.get();
+        }
+        return total;
+    }
+}
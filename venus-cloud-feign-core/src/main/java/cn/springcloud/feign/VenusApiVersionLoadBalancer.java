@@ -0,0 +1,131 @@
+package cn.springcloud.feign;
+
+import com.google.common.base.Optional;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.AvailabilityPredicate;
+import com.netflix.loadbalancer.Server;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.netflix.ribbon.ServerIntrospector;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 包装 ribbon client 的负载均衡器, 请求带有 api 版本时(见 {@link VenusApiVersionRouting})优先选择元数据中声明了该版本的实例,
+ * 没有时选择没有声明版本的实例, 都没有时按原负载均衡器选择. 候选实例与全部实例相同或都不可用时也按原负载均衡器选择.
+ * 实例的版本取自 {@link ServerIntrospector#getMetadata(Server)}, 多个版本用逗号分隔,
+ * 如 eureka 的 {@code eureka.instance.metadata-map.api-versions=v2,v1}
+ */
+public class VenusApiVersionLoadBalancer extends VenusDelegatingLoadBalancer {
+
+    private final ServerIntrospector introspector;
+
+    private final String metadataKey;
+
+    /**
+     * 在候选实例中轮询, 跳过熔断和并发过高的实例
+     */
+    private final AvailabilityPredicate predicate;
+
+    public VenusApiVersionLoadBalancer(AbstractLoadBalancer delegate, ServerIntrospector introspector,
+                                       String metadataKey, IClientConfig clientConfig) {
+        super(delegate);
+        this.introspector = introspector;
+        this.metadataKey = metadataKey;
+        this.predicate = new AvailabilityPredicate(delegate.getLoadBalancerStats(), clientConfig);
+    }
+
+    @Override
+    public Server chooseServer(Object key) {
+        String version = VenusApiVersionRouting.current();
+        if (version == null) {
+            return delegate.chooseServer(key);
+        }
+        List<Server> servers = delegate.getReachableServers();
+        List<Server> candidates = filter(servers, version);
+        if (candidates.size() == servers.size()) {
+            return delegate.chooseServer(key);
+        }
+        Optional<Server> server = predicate.chooseRoundRobinAfterFiltering(candidates, key);
+        return server.isPresent() ? server.get() : delegate.chooseServer(key);
+    }
+
+    /**
+     * 声明了该版本的实例, 没有时为没有声明版本的实例, 都没有时返回原列表
+     */
+    private List<Server> filter(List<Server> servers, String version) {
+        List<Server> matched = new ArrayList<>(servers.size());
+        List<Server> unversioned = new ArrayList<>(servers.size());
+        for (Server server : servers) {
+            Map<String, String> metadata = introspector.getMetadata(server);
+            String versions = metadata == null ? null : metadata.get(metadataKey);
+            if (versions == null || versions.trim().isEmpty()) {
+                unversioned.add(server);
+            } else if (contains(versions, version)) {
+                matched.add(server);
+            }
+        }
+        if (!matched.isEmpty()) {
+            return matched;
+        }
+        return unversioned.isEmpty() ? servers : unversioned;
+    }
+
+    private static boolean contains(String versions, String version) {
+        for (String value : versions.split(",")) {
+            if (value.trim().equals(version)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 注册到所有 ribbon client 的子容器, 包装其中的负载均衡器
+     */
+    static class RibbonConfiguration {
+
+        @Bean
+        public static BeanPostProcessor venusApiVersionLoadBalancerPostProcessor(
+                ObjectProvider<ServerIntrospector> introspector, ObjectProvider<IClientConfig> clientConfig,
+                @Value("${venus.feign.api-version-metadata-key:api-versions}") String metadataKey) {
+            return new PostProcessor(introspector, clientConfig, metadataKey);
+        }
+    }
+
+    /**
+     * 先于 {@link VenusHedgeLoadBalancer} 包装, 对冲请求排除实例时版本过滤同样生效
+     */
+    private static class PostProcessor implements BeanPostProcessor, Ordered {
+        private final ObjectProvider<ServerIntrospector> introspector;
+        private final ObjectProvider<IClientConfig> clientConfig;
+        private final String metadataKey;
+
+        PostProcessor(ObjectProvider<ServerIntrospector> introspector, ObjectProvider<IClientConfig> clientConfig,
+                      String metadataKey) {
+            this.introspector = introspector;
+            this.clientConfig = clientConfig;
+            this.metadataKey = metadataKey;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof AbstractLoadBalancer && !(bean instanceof VenusDelegatingLoadBalancer)) {
+                return new VenusApiVersionLoadBalancer((AbstractLoadBalancer) bean, introspector.getObject(),
+                        metadataKey, clientConfig.getObject());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package cn.springcloud.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * 路径中的 {version} 由 {@code @ApiImplicitParam} 的默认值填充时, contract 把版本写入请求头 {@link #VERSION_HEADER},
+ * 这里在负载均衡选择实例期间把版本放到当前线程, 由 {@link VenusApiVersionLoadBalancer} 优先选择注册信息中声明了该版本的实例
+ */
+public class VenusApiVersionRouting implements VenusClientDecorator {
+
+    static final String VERSION_HEADER = "Venus-Api-Version";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public int getOrder() {
+        // 最内层, 对冲请求在自己的线程中选择实例
+        return 450;
+    }
+
+    @Override
+    public Client decorate(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        Collection<String> version = request.headers().get(VERSION_HEADER);
+        if (version == null || version.isEmpty()) {
+            return client.execute(request, options);
+        }
+        String previous = CURRENT.get();
+        CURRENT.set(version.iterator().next());
+        try {
+            return client.execute(request, options);
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 当前线程正在发出的请求的 api 版本, 没有时返回 null
+     */
+    static String current() {
+        return CURRENT.get();
+    }
+}
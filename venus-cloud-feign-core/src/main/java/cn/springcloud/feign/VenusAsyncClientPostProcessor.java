@@ -0,0 +1,90 @@
+package cn.springcloud.feign;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.openfeign.VenusAsyncTargeter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 把 openfeign 的 Targeter 换成 {@link VenusAsyncTargeter}, 第一个有异步方法的 client 创建时才建立线程池.
+ * 线程池需要显式配置, 没有配置线程数也没有虚拟线程时, 有异步方法的 client 创建失败; 线程和队列都满时调用立即失败, 不再无限排队
+ */
+public class VenusAsyncClientPostProcessor implements BeanPostProcessor, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VenusAsyncClientPostProcessor.class);
+
+    private final int threads;
+
+    private final int queue;
+
+    private final boolean virtualThreads;
+
+    private volatile ExecutorService executor;
+
+    private volatile VenusAsyncInvoker invoker;
+
+    /**
+     * @param threads        执行异步调用的线程数, 0 为不建立线程池
+     * @param queue          线程都在执行时最多排队的调用数, 0 为不排队
+     * @param virtualThreads JDK 21+ 上每个异步调用使用一个虚拟线程, 不再受 threads 限制
+     */
+    public VenusAsyncClientPostProcessor(int threads, int queue, boolean virtualThreads) {
+        this.threads = threads;
+        this.queue = queue;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (VenusAsyncTargeter.isTargeter(bean)) {
+            return new VenusAsyncTargeter(bean, this::invoker);
+        }
+        return bean;
+    }
+
+    private synchronized VenusAsyncInvoker invoker() {
+        if (invoker == null) {
+            if (virtualThreads && VenusVirtualThreads.isAvailable()) {
+                executor = VenusVirtualThreads.newExecutor("venus-feign-async-");
+            } else {
+                if (threads <= 0) {
+                    throw new IllegalStateException("feign client methods returning CompletableFuture, Mono or Flux"
+                            + " require venus.feign.async-threads > 0"
+                            + (virtualThreads ? " on JDK below 21" : " or venus.feign.virtual-threads=true on JDK 21+"));
+                }
+                if (virtualThreads) {
+                    LOGGER.warn("virtual threads require JDK 21+, use {} platform threads", threads);
+                }
+                AtomicInteger count = new AtomicInteger();
+                BlockingQueue<Runnable> workQueue = queue > 0 ? new ArrayBlockingQueue<>(queue) : new SynchronousQueue<>();
+                // 默认的 AbortPolicy 在线程和队列都满时抛出 RejectedExecutionException, 由 VenusAsyncInvoker 交给返回的 future
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                        workQueue, r -> {
+                    Thread thread = new Thread(r, "venus-feign-async-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                pool.allowCoreThreadTimeOut(true);
+                executor = pool;
+            }
+            invoker = new VenusAsyncInvoker(executor);
+        }
+        return invoker;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package cn.springcloud.feign;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 把 feign client 的同步调用包装为 CompletableFuture、Mono、Flux 返回值, 调用在独立的线程池中执行,
+ * 调用方线程不再阻塞. CompletableFuture 立即发出请求, Mono/Flux 在订阅时发出. 解码类型由 contract 从泛型中取出.
+ */
+public class VenusAsyncInvoker {
+
+    private static final String MONO = "reactor.core.publisher.Mono";
+
+    private static final String FLUX = "reactor.core.publisher.Flux";
+
+    private static final List<String> ASYNC_TYPES = Arrays.asList(CompletableFuture.class.getName(), MONO, FLUX);
+
+    /**
+     * 同步调用 feign client
+     */
+    public interface Call {
+        Object call() throws Throwable;
+    }
+
+    private final Executor executor;
+
+    public VenusAsyncInvoker(Executor executor) {
+        this.executor = executor;
+    }
+
+    public static boolean isAsync(Method method) {
+        return ASYNC_TYPES.contains(method.getReturnType().getName());
+    }
+
+    /**
+     * 是否为 reactor 类型, 本地调用时无法拷贝
+     */
+    static boolean isReactive(Class<?> type) {
+        return MONO.equals(type.getName()) || FLUX.equals(type.getName());
+    }
+
+    public Object invoke(Method method, Call call) {
+        String type = method.getReturnType().getName();
+        if (MONO.equals(type)) {
+            return Reactor.mono(() -> submit(call));
+        }
+        if (FLUX.equals(type)) {
+            return Reactor.flux(() -> submit(call));
+        }
+        return submit(call);
+    }
+
+    private CompletableFuture<Object> submit(Call call) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 线程池已满或已关闭
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 只在返回 Mono/Flux 时加载, classpath 中没有 reactor 时不影响 CompletableFuture
+     */
+    private static class Reactor {
+        static Object mono(Supplier<CompletableFuture<Object>> future) {
+            return Mono.defer(() -> Mono.fromFuture(future.get()));
+        }
+
+        @SuppressWarnings("unchecked")
+        static Object flux(Supplier<CompletableFuture<Object>> future) {
+            return Mono.defer(() -> Mono.fromFuture(future.get()))
+                    .flatMapMany(list -> Flux.fromIterable((Iterable<Object>) list));
+        }
+    }
+}
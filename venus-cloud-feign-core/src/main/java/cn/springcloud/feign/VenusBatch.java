@@ -0,0 +1,38 @@
+package cn.springcloud.feign;
+
+import java.lang.annotation.*;
+
+/**
+ * 把同时发出的单个调用合并为一次批量调用, 声明在只有一个参数的 feign 接口方法上.
+ * 批量方法在同一个接口中, 参数为单个方法参数的 List/Set/Collection, 返回按参数顺序排列的 List, 或以参数为 key 的 Map.
+ * Set 在 provider 反序列化后没有顺序, 参数为 Set 时只能返回 Map.
+ * 批量请求的 RequestInterceptor 在一批中第一个调用方的线程执行, 只有 RequestInterceptor 写入的 header 相同的调用才会合并.
+ * <pre>
+ * &#64;VenusBatch("getUsers")
+ * &#64;GetMapping("/user/{id}")
+ * User getUser(&#64;PathVariable("id") Long id);
+ *
+ * &#64;PostMapping("/users")
+ * Map&lt;Long, User&gt; getUsers(&#64;RequestBody Set&lt;Long&gt; ids);
+ * </pre>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface VenusBatch {
+
+    /**
+     * 批量方法名
+     */
+    String value();
+
+    /**
+     * 一批最多的调用数, 达到后立即发出
+     */
+    int maxSize() default 100;
+
+    /**
+     * 第一个调用等待其它调用的最长时间(毫秒)
+     */
+    long maxDelay() default 5;
+}
@@ -0,0 +1,18 @@
+package cn.springcloud.feign;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.openfeign.VenusBatchTargeter;
+
+/**
+ * 把 openfeign 的 Targeter 换成 {@link VenusBatchTargeter}, 只有声明了 {@link VenusBatch} 的接口会被代理
+ */
+public class VenusBatchClientPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (VenusBatchTargeter.isTargeter(bean)) {
+            return new VenusBatchTargeter(bean);
+        }
+        return bean;
+    }
+}
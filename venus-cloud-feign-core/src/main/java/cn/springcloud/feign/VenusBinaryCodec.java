@@ -0,0 +1,165 @@
+package cn.springcloud.feign;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import feign.codec.Encoder;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * consumer 和 provider 共用接口时用 smile 代替 json 传输.
+ * 响应通过解析时写入的 Accept 协商, 不支持 smile 的 provider 按 q 值返回 json;
+ * 请求体在收到同一接口的 smile 响应后才改用 smile, provider 返回 415 时转回 json 重发一次, 之后该接口一直使用 json.
+ * smile 格式的错误响应转为 json, FeignException 中的信息保持可读.
+ */
+public class VenusBinaryCodec implements VenusClientDecorator {
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * 解析时写入方法模板的 Accept
+     */
+    static final String ACCEPT = SMILE + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.9";
+
+    private static final String CONTENT_TYPE = "Content-Type";
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private final JsonFactory smileFactory = new SmileFactory();
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * 接口 -> provider 是否接受 smile 请求体
+     */
+    private final ConcurrentMap<String, Boolean> peers = new ConcurrentHashMap<>();
+
+    @Override
+    public int getOrder() {
+        return 300;
+    }
+
+    @Override
+    public Encoder decorate(Encoder encoder) {
+        return (object, bodyType, template) -> {
+            if (!HttpMethod.GET.matches(template.method()) && isBinaryBody(object)
+                    && isJson(template.headers().get(CONTENT_TYPE))
+                    && peers.getOrDefault(peer(VenusRequestInterceptor.configKey(template.headers())), false)) {
+                template.header(CONTENT_TYPE, SMILE.toString());
+            }
+            encoder.encode(object, bodyType, template);
+        };
+    }
+
+    @Override
+    public Client decorate(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        Response response = client.execute(request, options);
+        String peer = peer(VenusClientDecorator.configKey(request));
+        if (response.status() == 415 && isSmile(header(request.headers(), CONTENT_TYPE)) && request.body() != null) {
+            peers.put(peer, false);
+            Util.ensureClosed(response.body());
+            byte[] body = transcode(smileFactory, new ByteArrayInputStream(request.body()), jsonFactory);
+            Map<String, Collection<String>> headers = new LinkedHashMap<>(request.headers());
+            headers.keySet().removeIf(name -> CONTENT_TYPE.equalsIgnoreCase(name) || CONTENT_LENGTH.equalsIgnoreCase(name));
+            headers.put(CONTENT_TYPE, Collections.singletonList(MediaType.APPLICATION_JSON_UTF8_VALUE));
+            headers.put(CONTENT_LENGTH, Collections.singletonList(String.valueOf(body.length)));
+            return client.execute(Request.create(request.method(), request.url(), headers, body, Util.UTF_8), options);
+        }
+        if (!isSmile(header(response.headers(), CONTENT_TYPE))) {
+            return response;
+        }
+        peers.putIfAbsent(peer, true);
+        if (response.status() < 400 || response.body() == null) {
+            return response;
+        }
+        byte[] body;
+        try (InputStream in = response.body().asInputStream()) {
+            body = transcode(smileFactory, in, jsonFactory);
+        }
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(response.headers());
+        headers.keySet().removeIf(name -> CONTENT_TYPE.equalsIgnoreCase(name) || CONTENT_LENGTH.equalsIgnoreCase(name));
+        headers.put(CONTENT_TYPE, Collections.singletonList(MediaType.APPLICATION_JSON_UTF8_VALUE));
+        return response.toBuilder().headers(headers).body(body).build();
+    }
+
+    /**
+     * 按 token 流式转换, 不经过对象绑定
+     */
+    private static byte[] transcode(JsonFactory from, InputStream in, JsonFactory to) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonParser parser = from.createParser(in); JsonGenerator generator = to.createGenerator(out)) {
+            while (parser.nextToken() != null) {
+                generator.copyCurrentEvent(parser);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 同一接口的方法由同一个 provider 实现, 按 configKey 中的接口名区分
+     */
+    private static String peer(String configKey) {
+        if (configKey == null) {
+            return "";
+        }
+        int index = configKey.indexOf('#');
+        return index < 0 ? configKey : configKey.substring(0, index);
+    }
+
+    private static boolean isBinaryBody(Object body) {
+        return body != null && !(body instanceof CharSequence) && !(body instanceof byte[])
+                && !(body instanceof Resource) && !(body instanceof InputStream);
+    }
+
+    /**
+     * 没有声明 Content-Type 时 SpringEncoder 按 json 编码
+     */
+    static boolean isJson(Collection<String> values) {
+        if (values == null || values.isEmpty()) {
+            return true;
+        }
+        for (String value : values) {
+            for (MediaType mediaType : MediaType.parseMediaTypes(value)) {
+                if (!MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSmile(Collection<String> values) {
+        return values != null && !values.isEmpty() && SMILE.isCompatibleWith(MediaType.parseMediaType(values.iterator().next()));
+    }
+
+    private static Collection<String> header(Map<String, Collection<String>> headers, String name) {
+        for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,21 @@
+package cn.springcloud.feign;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指定 feign 接口 GET 方法响应的缓存时间, 覆盖 provider 返回的 Cache-Control/Expires, 需开启 venus.feign.response-cache.
+ * provider 返回 Cache-Control: no-store 时, 或请求带 Authorization 而响应不是 public 时仍然不缓存.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface VenusCacheable {
+
+    /**
+     * 缓存时间, 0 表示不缓存
+     */
+    long ttl();
+
+    TimeUnit unit() default TimeUnit.SECONDS;
+}
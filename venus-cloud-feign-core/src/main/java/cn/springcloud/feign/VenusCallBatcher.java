@@ -0,0 +1,198 @@
+package cn.springcloud.feign;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 合并 {@link VenusBatch} 方法的调用: 每批的第一个调用方等待 maxDelay 或凑满 maxSize 后, 在自己的线程中调用批量方法,
+ * 再把结果分给同一批的其它调用方. 同一批中相同的参数只发送一次, 参数为 null 的调用不合并.
+ * 批量请求的 RequestInterceptor 在第一个调用方的线程中执行, 所以只有 group 相同(RequestInterceptor 写入的 header 相同)
+ * 的调用才会合并, 避免其它调用方的请求带上第一个调用方的身份.
+ */
+public class VenusCallBatcher {
+
+    /**
+     * 调用 feign client 的方法
+     */
+    public interface Invoker {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    private final Method batchMethod;
+
+    private final int maxSize;
+
+    private final long maxDelayNanos;
+
+    private final boolean set;
+
+    private final boolean map;
+
+    /**
+     * 不用 synchronized/wait, 虚拟线程等待时不会占住载体线程
+     */
+    private final Lock lock = new ReentrantLock();
+
+    private final Condition batchFull = lock.newCondition();
+
+    /**
+     * 每个 group 正在等待的一批
+     */
+    private final Map<Object, Batch> current = new HashMap<>();
+
+    private VenusCallBatcher(Method batchMethod, VenusBatch batch) {
+        this.batchMethod = batchMethod;
+        this.maxSize = Math.max(1, batch.maxSize());
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(batch.maxDelay());
+        this.set = Set.class.isAssignableFrom(batchMethod.getParameterTypes()[0]);
+        this.map = Map.class.isAssignableFrom(batchMethod.getReturnType());
+    }
+
+    /**
+     * 接口中所有 {@link VenusBatch} 方法的 batcher, 批量方法不存在或签名不符时抛出 {@link IllegalStateException}.
+     * Set 参数在 provider 反序列化后没有顺序, 所以参数为 Set 的批量方法必须返回 Map
+     */
+    public static Map<Method, VenusCallBatcher> forType(Class<?> type) {
+        Map<Method, VenusCallBatcher> batchers = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            VenusBatch batch = method.getAnnotation(VenusBatch.class);
+            if (batch == null) {
+                continue;
+            }
+            if (method.getParameterCount() != 1) {
+                throw new IllegalStateException("@VenusBatch method must have exactly one parameter: " + method);
+            }
+            Method batchMethod = null;
+            for (Method candidate : type.getMethods()) {
+                if (candidate.getName().equals(batch.value()) && candidate.getParameterCount() == 1
+                        && Collection.class.isAssignableFrom(candidate.getParameterTypes()[0])
+                        && (List.class.isAssignableFrom(candidate.getReturnType())
+                        || Map.class.isAssignableFrom(candidate.getReturnType()))) {
+                    if (batchMethod != null) {
+                        throw new IllegalStateException("ambiguous batch method " + batch.value() + " for " + method);
+                    }
+                    batchMethod = candidate;
+                }
+            }
+            if (batchMethod == null) {
+                throw new IllegalStateException("no batch method " + batch.value()
+                        + "(Collection) returning List or Map for " + method);
+            }
+            if (Set.class.isAssignableFrom(batchMethod.getParameterTypes()[0])
+                    && !Map.class.isAssignableFrom(batchMethod.getReturnType())) {
+                throw new IllegalStateException("batch method " + batchMethod
+                        + " with a Set parameter must return Map, results of a List can not be matched to arguments");
+            }
+            batchers.put(method, new VenusCallBatcher(batchMethod, batch));
+        }
+        return batchers;
+    }
+
+    /**
+     * @param group 只有 group 相同的调用合并为一批, 不能为 null
+     */
+    public Object call(Invoker invoker, Object arg, Object group) throws Throwable {
+        Batch batch;
+        boolean leader = false;
+        boolean full = false;
+        CompletableFuture<Object> future;
+        lock.lock();
+        try {
+            batch = current.get(group);
+            if (batch == null) {
+                batch = new Batch(group, System.nanoTime() + maxDelayNanos);
+                current.put(group, batch);
+                leader = true;
+            }
+            future = batch.calls.computeIfAbsent(arg, key -> new CompletableFuture<>());
+            if (batch.calls.size() >= maxSize) {
+                current.remove(group);
+                full = true;
+                batchFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            flush(invoker, batch);
+        } else if (leader && await(batch)) {
+            flush(invoker, batch);
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 等待其它调用加入, 返回是否由自己发出
+     */
+    private boolean await(Batch batch) {
+        lock.lock();
+        try {
+            long remaining;
+            while (current.get(batch.group) == batch && (remaining = batch.deadline - System.nanoTime()) > 0) {
+                try {
+                    batchFull.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    // 被中断时立即发出, 不能让同一批的调用方一直等待
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (current.get(batch.group) == batch) {
+                current.remove(batch.group);
+                return true;
+            }
+            // 已被凑满的调用方发出
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flush(Invoker invoker, Batch batch) {
+        Collection<Object> args = set ? new LinkedHashSet<>(batch.calls.keySet()) : new ArrayList<>(batch.calls.keySet());
+        try {
+            Object result = invoker.invoke(batchMethod, new Object[]{args});
+            if (map) {
+                Map<?, ?> results = result == null ? Collections.emptyMap() : (Map<?, ?>) result;
+                batch.calls.forEach((arg, future) -> future.complete(results.get(arg)));
+            } else {
+                List<?> results = result == null ? Collections.emptyList() : (List<?>) result;
+                if (results.size() != args.size()) {
+                    throw new IllegalStateException(batchMethod.getName() + " returned " + results.size()
+                            + " results for " + args.size() + " arguments");
+                }
+                Iterator<?> iterator = results.iterator();
+                batch.calls.values().forEach(future -> future.complete(iterator.next()));
+            }
+        } catch (Throwable e) {
+            batch.calls.values().forEach(future -> future.completeExceptionally(e));
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    private static class Batch {
+        private final Object group;
+        private final long deadline;
+        /**
+         * 参数和对应的结果, 按加入顺序
+         */
+        private final Map<Object, CompletableFuture<Object>> calls = new LinkedHashMap<>();
+
+        Batch(Object group, long deadline) {
+            this.group = group;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package cn.springcloud.feign;
+
+import feign.Client;
+import feign.codec.Encoder;
+import org.springframework.core.Ordered;
+
+/**
+ * 包装所有 feign client 发送请求的 {@link Client}(负载均衡之前), 容器中有这个类型的 bean 时生效.
+ * order 越小越靠外层; 请求头中带有方法的 configKey, 可通过 {@link #configKey(feign.Request)} 读取.
+ * 需要改变请求体编码方式时同时包装 client 的 {@link Encoder}.
+ */
+public interface VenusClientDecorator extends Ordered {
+
+    Client decorate(Client client);
+
+    default Encoder decorate(Encoder encoder) {
+        return encoder;
+    }
+
+    static String configKey(feign.Request request) {
+        return VenusRequestInterceptor.configKey(request.headers());
+    }
+}
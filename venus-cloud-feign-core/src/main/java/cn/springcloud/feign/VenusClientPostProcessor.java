@@ -0,0 +1,104 @@
+package cn.springcloud.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.codec.Encoder;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.openfeign.VenusClientTargeter;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 容器中有 {@link VenusClientDecorator} 时把 openfeign 的 Targeter 换成 {@link VenusClientTargeter}
+ */
+public class VenusClientPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+    /**
+     * 解析时写入方法模板、只在 {@link VenusClientDecorator} 之间传递的请求头
+     */
+    private static final List<String> INTERNAL_HEADERS = Arrays.asList(VenusRequestInterceptor.CONFIG_KEY_HEADER,
+            VenusResponseCache.TTL_HEADER, VenusRequestCoalescer.SINGLE_FLIGHT_HEADER, VenusHedging.HEDGE_HEADER,
+            VenusApiVersionRouting.VERSION_HEADER, VenusResponseCache.KEY_HEADERS);
+
+    private ListableBeanFactory beanFactory;
+
+    private volatile List<VenusClientDecorator> decorators;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = (ListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (VenusClientTargeter.isTargeter(bean)
+                && beanFactory.getBeanNamesForType(VenusClientDecorator.class, true, false).length > 0) {
+            return new VenusClientTargeter(bean, this::decorate, this::decorate);
+        }
+        return bean;
+    }
+
+    private List<VenusClientDecorator> decorators() {
+        List<VenusClientDecorator> decorators = this.decorators;
+        if (decorators == null) {
+            decorators = new ArrayList<>(beanFactory.getBeansOfType(VenusClientDecorator.class).values());
+            AnnotationAwareOrderComparator.sort(decorators);
+            this.decorators = decorators;
+        }
+        return decorators;
+    }
+
+    private Encoder decorate(Encoder encoder) {
+        List<VenusClientDecorator> decorators = decorators();
+        Encoder decorated = encoder;
+        for (int i = decorators.size() - 1; i >= 0; i--) {
+            decorated = decorators.get(i).decorate(decorated);
+        }
+        return decorated;
+    }
+
+    private Client decorate(Client client) {
+        List<VenusClientDecorator> decorators = decorators();
+        Client decorated = new InternalHeaderClient(client);
+        for (int i = decorators.size() - 1; i >= 0; i--) {
+            decorated = decorators.get(i).decorate(decorated);
+        }
+        return decorated;
+    }
+
+    /**
+     * 最内层, 发出请求前移除解析时写入的内部请求头
+     */
+    private static class InternalHeaderClient implements Client {
+        private final Client delegate;
+
+        InternalHeaderClient(Client delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Response execute(Request request, Request.Options options) throws IOException {
+            Map<String, Collection<String>> headers = request.headers();
+            for (String name : INTERNAL_HEADERS) {
+                if (headers.containsKey(name)) {
+                    headers = new LinkedHashMap<>(headers);
+                    headers.keySet().removeAll(INTERNAL_HEADERS);
+                    request = Request.create(request.method(), request.url(), headers, request.body(), request.charset());
+                    break;
+                }
+            }
+            return delegate.execute(request, options);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package cn.springcloud.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static cn.springcloud.feign.VenusContentEncoding.ACCEPT_ENCODING;
+import static cn.springcloud.feign.VenusContentEncoding.CONTENT_ENCODING;
+
+/**
+ * consumer 端的请求体压缩和响应体解压. 请求中带上本进程支持的 Accept-Encoding, 由 provider 的 {@link VenusCompressionFilter} 压缩响应;
+ * provider 在响应头 Accept-Encoding 中声明支持的算法后(RFC 7694), 发往该服务的请求体超过 minSize 时才压缩,
+ * 返回 415 时不压缩重发一次, 之后不再压缩.
+ */
+public class VenusCompression implements VenusClientDecorator {
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private final int minSize;
+
+    /**
+     * 服务(url 的 scheme + authority, 负载均衡前为服务名) -> 请求体使用的算法
+     */
+    private final ConcurrentMap<String, VenusContentEncoding> peers = new ConcurrentHashMap<>();
+
+    private VenusFeignMetrics metrics;
+
+    /**
+     * @param minSize 请求体达到该字节数才压缩
+     */
+    public VenusCompression(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public void setMetrics(VenusFeignMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int getOrder() {
+        // 最内层, 压缩 smile 或 json 编码后的请求体
+        return 400;
+    }
+
+    @Override
+    public Client decorate(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        String peer = peer(request.url());
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(request.headers());
+        if (header(headers, ACCEPT_ENCODING) == null) {
+            headers.put(ACCEPT_ENCODING, Collections.singletonList(VenusContentEncoding.ACCEPTED));
+        }
+        Request uncompressed = Request.create(request.method(), request.url(), headers, request.body(), request.charset());
+        Request compressed = compress(uncompressed, peers.get(peer));
+        Response response = client.execute(compressed, options);
+        if (compressed != uncompressed && response.status() == 415) {
+            peers.remove(peer);
+            Util.ensureClosed(response.body());
+            response = client.execute(uncompressed, options);
+        }
+        VenusContentEncoding accepted = VenusContentEncoding.negotiate(header(response.headers(), ACCEPT_ENCODING));
+        if (accepted == null) {
+            peers.remove(peer);
+        } else {
+            peers.put(peer, accepted);
+        }
+        return decompress(response);
+    }
+
+    private Request compress(Request request, VenusContentEncoding encoding) throws IOException {
+        byte[] body = request.body();
+        if (encoding == null || body == null || body.length < minSize || header(request.headers(), CONTENT_ENCODING) != null) {
+            return request;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4);
+        try (OutputStream out = encoding.compress(buffer)) {
+            out.write(body);
+        }
+        if (metrics != null) {
+            metrics.recordCompression("request", encoding.token(), body.length, buffer.size());
+        }
+        if (buffer.size() >= body.length) {
+            return request;
+        }
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(request.headers());
+        headers.keySet().removeIf(CONTENT_LENGTH::equalsIgnoreCase);
+        // Client.Default 遇到 "Content-Encoding: gzip" 会再压缩一次, 用小写的头名避开
+        headers.put("content-encoding", Collections.singletonList(encoding.token()));
+        headers.put(CONTENT_LENGTH, Collections.singletonList(String.valueOf(buffer.size())));
+        return Request.create(request.method(), request.url(), headers, buffer.toByteArray(), request.charset());
+    }
+
+    private static Response decompress(Response response) throws IOException {
+        Collection<String> contentEncoding = header(response.headers(), CONTENT_ENCODING);
+        VenusContentEncoding encoding = contentEncoding == null || contentEncoding.size() != 1 ? null
+                : VenusContentEncoding.of(contentEncoding.iterator().next());
+        if (encoding == null || response.body() == null || Integer.valueOf(0).equals(response.body().length())) {
+            return response;
+        }
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(response.headers());
+        headers.keySet().removeIf(name -> CONTENT_ENCODING.equalsIgnoreCase(name) || CONTENT_LENGTH.equalsIgnoreCase(name));
+        return response.toBuilder().headers(headers)
+                .body(encoding.decompress(response.body().asInputStream()), null).build();
+    }
+
+    private static String peer(String url) {
+        int start = url.indexOf("://");
+        int end = url.indexOf('/', start < 0 ? 0 : start + 3);
+        return end < 0 ? url : url.substring(0, end);
+    }
+
+    private static Collection<String> header(Map<String, Collection<String>> headers, String name) {
+        for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,358 @@
+package cn.springcloud.feign;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
+
+import static cn.springcloud.feign.VenusContentEncoding.ACCEPT_ENCODING;
+import static cn.springcloud.feign.VenusContentEncoding.CONTENT_ENCODING;
+
+/**
+ * provider 端按请求的 Accept-Encoding 压缩超过 minSize 的响应, 并在响应头 Accept-Encoding 中声明可以解压的请求体算法(RFC 7694).
+ * 请求体由 {@link VenusFeignAutoConfig} 中的 RequestResponseBodyMethodProcessor 解压, 不支持的 Content-Encoding 返回 415.
+ * 只压缩同步写出的响应, 异步请求在 filter 返回时已写出的部分不压缩.
+ * 只压缩 Content-Type 在 mimeTypes 中的响应, 图片、压缩包等已压缩的内容和 actuator 的输出原样写出.
+ */
+public class VenusCompressionFilter extends OncePerRequestFilter {
+
+    /**
+     * 默认压缩的响应类型, 不包含逐行 flush 的 NDJSON 和 SSE, 压缩后会延迟到缓冲区满才写出
+     */
+    public static final List<MediaType> DEFAULT_MIME_TYPES = MediaType.parseMediaTypes(
+            "application/json, application/x-jackson-smile, application/xml, application/javascript,"
+                    + " text/plain, text/html, text/xml, text/css, text/csv");
+
+    private final int minSize;
+
+    private List<MediaType> mimeTypes = DEFAULT_MIME_TYPES;
+
+    private VenusFeignMetrics metrics;
+
+    /**
+     * @param minSize 响应体达到该字节数才压缩
+     */
+    public VenusCompressionFilter(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public void setMetrics(VenusFeignMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setMimeTypes(List<MediaType> mimeTypes) {
+        this.mimeTypes = mimeTypes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        response.setHeader(ACCEPT_ENCODING, VenusContentEncoding.ACCEPTED);
+        String contentEncoding = request.getHeader(CONTENT_ENCODING);
+        if (contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding.trim())
+                && VenusContentEncoding.of(contentEncoding) == null) {
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "unsupported Content-Encoding " + contentEncoding);
+            return;
+        }
+        VenusContentEncoding encoding = VenusContentEncoding.negotiate(Collections.list(request.getHeaders(ACCEPT_ENCODING)));
+        if (encoding == null || "HEAD".equals(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        CompressingResponse compressing = new CompressingResponse(response, encoding);
+        try {
+            chain.doFilter(request, compressing);
+        } finally {
+            if (request.isAsyncStarted()) {
+                compressing.stream.passThrough();
+            } else {
+                compressing.finish();
+            }
+        }
+    }
+
+    /**
+     * 按 Content-Encoding 解压 @RequestBody 的请求体
+     */
+    static ServletServerHttpRequest decompress(ServletServerHttpRequest request) {
+        VenusContentEncoding encoding = VenusContentEncoding.of(request.getServletRequest().getHeader(CONTENT_ENCODING));
+        if (encoding == null) {
+            return request;
+        }
+        return new ServletServerHttpRequest(request.getServletRequest()) {
+            private HttpHeaders headers;
+
+            @Override
+            public HttpHeaders getHeaders() {
+                if (headers == null) {
+                    headers = new HttpHeaders();
+                    headers.putAll(super.getHeaders());
+                    headers.remove(CONTENT_ENCODING);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                }
+                return headers;
+            }
+
+            @Override
+            public InputStream getBody() throws IOException {
+                return encoding.decompress(super.getBody());
+            }
+        };
+    }
+
+    private class CompressingResponse extends HttpServletResponseWrapper {
+        private final CompressingStream stream;
+        private PrintWriter writer;
+
+        CompressingResponse(HttpServletResponse response, VenusContentEncoding encoding) {
+            super(response);
+            this.stream = new CompressingStream(response, encoding);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.flush();
+        }
+
+        /**
+         * 未压缩时按写出的长度设置, 压缩时不设置
+         */
+        @Override
+        public void setContentLength(int len) {
+            stream.contentLength = len;
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            stream.contentLength = len;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                stream.contentLength = Long.parseLong(value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                stream.contentLength = Long.parseLong(value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            stream.resetBuffer();
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            stream.resetBuffer();
+            super.reset();
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.finish();
+        }
+    }
+
+    /**
+     * 先缓存 minSize 字节, 超过后设置 Content-Encoding 并压缩; 缓存期间 flush 时不压缩直接写出
+     */
+    private class CompressingStream extends ServletOutputStream {
+        private final HttpServletResponse response;
+        private final VenusContentEncoding encoding;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(minSize, 8192));
+        private OutputStream target;
+        private CountingStream counting;
+        private long written;
+        private long contentLength = -1;
+
+        CompressingStream(HttpServletResponse response, VenusContentEncoding encoding) {
+            this.response = response;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            written += len;
+            if (target == null) {
+                if (buffer.size() + len < minSize) {
+                    buffer.write(b, off, len);
+                    return;
+                }
+                if (response.isCommitted() || response.containsHeader(CONTENT_ENCODING)
+                        || !compressible(response.getContentType())) {
+                    passThrough();
+                } else {
+                    startCompression();
+                }
+            }
+            target.write(b, off, len);
+        }
+
+        private boolean compressible(String contentType) {
+            if (contentType == null) {
+                return false;
+            }
+            try {
+                MediaType mediaType = MediaType.parseMediaType(contentType);
+                return mimeTypes.stream().anyMatch(type -> type.includes(mediaType));
+            } catch (InvalidMediaTypeException e) {
+                return false;
+            }
+        }
+
+        private void startCompression() throws IOException {
+            response.setHeader(CONTENT_ENCODING, encoding.token());
+            response.addHeader(HttpHeaders.VARY, ACCEPT_ENCODING);
+            counting = new CountingStream(response.getOutputStream());
+            target = encoding.compress(counting);
+            target.write(buffer.toByteArray());
+            buffer = null;
+        }
+
+        void passThrough() throws IOException {
+            if (target != null) {
+                return;
+            }
+            if (contentLength >= 0 && !response.isCommitted()) {
+                response.setContentLengthLong(contentLength);
+            }
+            target = response.getOutputStream();
+            if (buffer.size() > 0) {
+                target.write(buffer.toByteArray());
+            }
+            buffer = null;
+        }
+
+        void resetBuffer() {
+            if (target == null) {
+                buffer.reset();
+                written = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target == null) {
+                passThrough();
+            }
+            target.flush();
+        }
+
+        void finish() throws IOException {
+            if (target == null) {
+                if (buffer.size() > 0 && contentLength < 0) {
+                    contentLength = buffer.size();
+                }
+                passThrough();
+            } else if (counting != null) {
+                target.close();
+                if (metrics != null) {
+                    metrics.recordCompression("response", encoding.token(), written, counting.count);
+                }
+            }
+        }
+
+        /**
+         * 非阻塞写出时不再缓存和压缩, 交给原始的输出流, 由容器按实际的连接状态回调
+         */
+        @Override
+        public boolean isReady() {
+            try {
+                return response.getOutputStream().isReady();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                passThrough();
+                response.getOutputStream().setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class CountingStream extends OutputStream {
+        private final OutputStream delegate;
+        private long count;
+
+        CountingStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
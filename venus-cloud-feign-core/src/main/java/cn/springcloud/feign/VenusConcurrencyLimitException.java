@@ -0,0 +1,35 @@
+package cn.springcloud.feign;
+
+import feign.FeignException;
+
+/**
+ * {@link VenusConcurrencyLimiter} 拒绝的调用, 请求没有发出
+ */
+public class VenusConcurrencyLimitException extends FeignException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String key;
+
+    private final int limit;
+
+    public VenusConcurrencyLimitException(String key, int limit) {
+        super("concurrency limit " + limit + " exceeded for " + key);
+        this.key = key;
+        this.limit = limit;
+    }
+
+    /**
+     * 服务名或 configKey
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 拒绝时的并发上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
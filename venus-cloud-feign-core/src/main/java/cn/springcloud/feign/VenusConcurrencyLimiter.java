@@ -0,0 +1,176 @@
+package cn.springcloud.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按服务(@FeignClient 的 name, 指定 url 时为 host:port)或方法限制同时进行的请求数, 超过上限时直接抛出
+ * {@link VenusConcurrencyLimitException}, 不排队. 上限按 Vegas 算法调整: 以最小耗时为无负载耗时,
+ * 由当前耗时估算 provider 端排队的请求数, 排队少时增大上限, 排队多时减小; 超时、连接失败和 429/503 响应按比例减小.
+ */
+public class VenusConcurrencyLimiter implements VenusClientDecorator {
+
+    private final int initialLimit;
+
+    private final int maxLimit;
+
+    private final boolean perMethod;
+
+    private final ConcurrentMap<String, Limit> limits = new ConcurrentHashMap<>();
+
+    private VenusFeignMetrics metrics;
+
+    /**
+     * @param initialLimit 初始并发上限
+     * @param maxLimit     并发上限的最大值
+     * @param perMethod    按 configKey 分别限制, 否则按服务限制
+     */
+    public VenusConcurrencyLimiter(int initialLimit, int maxLimit, boolean perMethod) {
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.perMethod = perMethod;
+    }
+
+    public void setMetrics(VenusFeignMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int getOrder() {
+        // 在对冲之内, 每次实际发出的请求都占用并发
+        return 260;
+    }
+
+    @Override
+    public Client decorate(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        String configKey = VenusClientDecorator.configKey(request);
+        String key = perMethod && configKey != null ? configKey : service(request.url());
+        Limit limit = limits.get(key);
+        if (limit == null) {
+            limit = limits.computeIfAbsent(key, this::newLimit);
+        }
+        int inflight = limit.acquire();
+        if (inflight < 0) {
+            if (metrics != null) {
+                metrics.recordConcurrencyRejected(key);
+            }
+            throw new VenusConcurrencyLimitException(key, limit.limit);
+        }
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            Response response = client.execute(request, options);
+            dropped = response.status() == 429 || response.status() == 503;
+            return response;
+        } catch (RuntimeException | Error e) {
+            // 不是 provider 过载造成的失败
+            dropped = false;
+            throw e;
+        } finally {
+            limit.inflight.decrementAndGet();
+            limit.sample(System.nanoTime() - start, inflight, dropped);
+        }
+    }
+
+    private Limit newLimit(String key) {
+        Limit limit = new Limit(initialLimit, maxLimit);
+        if (metrics != null) {
+            metrics.registerConcurrencyLimit(key, limit, value -> value.limit, value -> value.inflight.get());
+        }
+        return limit;
+    }
+
+    /**
+     * url 的 host[:port], 负载均衡前为服务名
+     */
+    private static String service(String url) {
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = start;
+        while (end < url.length() && url.charAt(end) != '/' && url.charAt(end) != '?') {
+            end++;
+        }
+        return url.substring(start, end);
+    }
+
+    private static class Limit {
+        private final int maxLimit;
+        private final AtomicInteger inflight = new AtomicInteger();
+        private volatile int limit;
+        private double estimate;
+        /**
+         * 无负载时的耗时, 0 表示还没有样本
+         */
+        private long rttNoLoad;
+        /**
+         * 倒数到 0 时用下一个样本重新测量无负载耗时, 避免 provider 变慢后一直按过去的最小耗时计算
+         */
+        private int probeCountdown;
+
+        Limit(int initialLimit, int maxLimit) {
+            this.maxLimit = maxLimit;
+            this.limit = initialLimit;
+            this.estimate = initialLimit;
+            this.probeCountdown = nextProbeCountdown(initialLimit);
+        }
+
+        /**
+         * @return 占用后的并发数, 超过上限时返回 -1
+         */
+        int acquire() {
+            int current;
+            do {
+                current = inflight.get();
+                if (current >= limit) {
+                    return -1;
+                }
+            } while (!inflight.compareAndSet(current, current + 1));
+            return current + 1;
+        }
+
+        synchronized void sample(long rtt, int inflight, boolean dropped) {
+            if (--probeCountdown <= 0) {
+                probeCountdown = nextProbeCountdown(limit);
+                rttNoLoad = rtt;
+                return;
+            }
+            if (rttNoLoad == 0 || rtt < rttNoLoad) {
+                rttNoLoad = rtt;
+                return;
+            }
+            double log = Math.max(1, Math.log10(estimate));
+            if (dropped) {
+                estimate = estimate * 0.9;
+            } else if (inflight * 2 < estimate) {
+                // 未用满上限时耗时不能说明容量, 不调整
+                return;
+            } else {
+                double queue = Math.ceil(estimate * (1 - (double) rttNoLoad / rtt));
+                if (queue <= log) {
+                    estimate += 6 * log;
+                } else if (queue < 3 * log) {
+                    estimate += log;
+                } else if (queue > 6 * log) {
+                    estimate -= log;
+                }
+            }
+            estimate = Math.max(1, Math.min(maxLimit, estimate));
+            limit = (int) estimate;
+        }
+
+        private static int nextProbeCountdown(int limit) {
+            return (int) (30 * limit * ThreadLocalRandom.current().nextDouble(0.5, 1));
+        }
+    }
+}
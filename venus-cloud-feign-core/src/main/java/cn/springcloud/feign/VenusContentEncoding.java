@@ -0,0 +1,152 @@
+package cn.springcloud.feign;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.util.Native;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 请求体和响应体的压缩算法, 按优先级排列; zstd 需要 classpath 中有 zstd-jni 且本地库可以加载
+ */
+enum VenusContentEncoding {
+
+    ZSTD("zstd") {
+        @Override
+        OutputStream compress(OutputStream out) throws IOException {
+            return Zstd.compress(out);
+        }
+
+        @Override
+        InputStream decompress(InputStream in) throws IOException {
+            return Zstd.decompress(in);
+        }
+    },
+
+    GZIP("gzip") {
+        @Override
+        OutputStream compress(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, 8192);
+        }
+
+        @Override
+        InputStream decompress(InputStream in) throws IOException {
+            return new GZIPInputStream(in, 8192);
+        }
+    };
+
+    static final String CONTENT_ENCODING = "Content-Encoding";
+
+    static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final List<VenusContentEncoding> AVAILABLE;
+
+    /**
+     * 当前进程支持的算法, 用于 Accept-Encoding
+     */
+    static final String ACCEPTED;
+
+    static {
+        List<VenusContentEncoding> available = new ArrayList<>();
+        if (ClassUtils.isPresent("com.github.luben.zstd.ZstdOutputStream", VenusContentEncoding.class.getClassLoader())
+                && Zstd.load()) {
+            available.add(ZSTD);
+        }
+        available.add(GZIP);
+        AVAILABLE = Collections.unmodifiableList(available);
+        StringBuilder accepted = new StringBuilder();
+        for (VenusContentEncoding encoding : AVAILABLE) {
+            accepted.append(accepted.length() == 0 ? "" : ", ").append(encoding.token);
+        }
+        ACCEPTED = accepted.toString();
+    }
+
+    private final String token;
+
+    VenusContentEncoding(String token) {
+        this.token = token;
+    }
+
+    String token() {
+        return token;
+    }
+
+    abstract OutputStream compress(OutputStream out) throws IOException;
+
+    abstract InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * 当前进程支持的算法, 不支持或 identity 时返回 null
+     */
+    static VenusContentEncoding of(String token) {
+        if (token == null) {
+            return null;
+        }
+        String value = token.trim().toLowerCase(Locale.ROOT);
+        for (VenusContentEncoding encoding : AVAILABLE) {
+            if (encoding.token.equals(value)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 对方 Accept-Encoding 中本进程也支持的第一个算法, 按本进程的优先级选择, 没有时返回 null
+     */
+    static VenusContentEncoding negotiate(Collection<String> acceptEncodings) {
+        if (acceptEncodings == null || acceptEncodings.isEmpty()) {
+            return null;
+        }
+        List<String> accepted = new ArrayList<>();
+        for (String value : acceptEncodings) {
+            for (String part : value.split(",")) {
+                int index = part.indexOf(';');
+                String token = (index < 0 ? part : part.substring(0, index)).trim().toLowerCase(Locale.ROOT);
+                // q=0 表示不接受
+                if (index < 0 || !part.substring(index + 1).replace(" ", "").matches("q=0(\\.0*)?")) {
+                    accepted.add(token);
+                }
+            }
+        }
+        for (VenusContentEncoding encoding : AVAILABLE) {
+            if (accepted.contains(encoding.token) || accepted.contains("*")) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 只在 zstd-jni 存在时加载
+     */
+    private static class Zstd {
+
+        static boolean load() {
+            try {
+                Native.load();
+                return true;
+            } catch (LinkageError | RuntimeException e) {
+                return false;
+            }
+        }
+
+        static OutputStream compress(OutputStream out) throws IOException {
+            return new ZstdOutputStream(out);
+        }
+
+        static InputStream decompress(InputStream in) throws IOException {
+            return new ZstdInputStream(in);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package cn.springcloud.feign;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.cloud.openfeign.VenusFeignClients;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * contract 创建后在后台线程池中并行解析所有 @FeignClient 接口, 结果放入 {@link VenusContractRegistry}.
+ * 之后按顺序创建的 client 直接取用解析结果, 解析中的方法等待同一次解析完成; 解析失败不缓存, 创建 client 时重新解析并抛出.
+ */
+public class VenusContractPreParser implements BeanPostProcessor, BeanFactoryAware {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VenusContractPreParser.class);
+
+    private final int threads;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private ConfigurableListableBeanFactory beanFactory;
+
+    /**
+     * @param threads 并行解析的线程数
+     */
+    public VenusContractPreParser(int threads) {
+        this.threads = threads;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof VenusSpringMvcContract && started.compareAndSet(false, true)) {
+            parse((VenusSpringMvcContract) bean, VenusFeignClients.types(beanFactory));
+        }
+        return bean;
+    }
+
+    private void parse(VenusSpringMvcContract contract, Set<Class<?>> types) {
+        if (types.isEmpty()) {
+            return;
+        }
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, types.size()), runnable -> {
+            Thread thread = new Thread(runnable, "venus-feign-contract-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Class<?> type : types) {
+            executor.execute(() -> {
+                try {
+                    contract.parseAndValidatateMetadata(type);
+                } catch (RuntimeException e) {
+                    LOGGER.debug("parse {} failed", type.getName(), e);
+                }
+            });
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,83 @@
+package cn.springcloud.feign;
+
+import feign.MethodMetadata;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.*;
+
+/**
+ * 进程内共享的接口解析结果, 按接口和 configKey 缓存, 多个 FeignClient 共用同一个接口时每个方法只解析一次.
+ * 解析结果挂在接口的 Class 上, 随接口类卸载一起回收, 不持有 Method 引用;
+ * 只复用同一个 contract 解析的结果, contract 重建(如上下文刷新)后重新解析.
+ * 缓存的 MethodMetadata 在多个 client 间共享, 解析完成后不可再修改.
+ */
+final class VenusContractRegistry {
+
+    private static final ClassValue<ConcurrentMap<String, Entry>> METADATA = new ClassValue<ConcurrentMap<String, Entry>>() {
+        @Override
+        protected ConcurrentMap<String, Entry> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private VenusContractRegistry() {
+    }
+
+    /**
+     * 取出缓存的解析结果, 没有则由当前线程解析, 并发解析同一个方法的其他线程等待结果
+     */
+    static MethodMetadata get(Object contract, Class<?> targetType, String configKey, Callable<MethodMetadata> parser) {
+        ConcurrentMap<String, Entry> methods = METADATA.get(targetType);
+        while (true) {
+            Entry entry = methods.get(configKey);
+            if (entry != null && entry.contract.get() == contract) {
+                return entry.await();
+            }
+            Entry created = new Entry(contract, parser);
+            boolean owner = entry == null ? methods.putIfAbsent(configKey, created) == null
+                    : methods.replace(configKey, entry, created);
+            if (owner) {
+                try {
+                    return created.run();
+                } catch (RuntimeException | Error e) {
+                    // 解析失败不缓存, 下次调用重新解析并抛出同样的异常
+                    methods.remove(configKey, created);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static class Entry {
+        private final WeakReference<Object> contract;
+        private final FutureTask<MethodMetadata> task;
+
+        Entry(Object contract, Callable<MethodMetadata> parser) {
+            this.contract = new WeakReference<>(contract);
+            this.task = new FutureTask<>(parser);
+        }
+
+        MethodMetadata run() {
+            task.run();
+            return await();
+        }
+
+        MethodMetadata await() {
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while parsing feign contract", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package cn.springcloud.feign;
+
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+
+import java.util.List;
+
+/**
+ * 包装 ribbon client 的负载均衡器, 只改变 {@link #chooseServer(Object)}, 其他方法交给原负载均衡器
+ */
+abstract class VenusDelegatingLoadBalancer extends AbstractLoadBalancer {
+
+    protected final AbstractLoadBalancer delegate;
+
+    protected VenusDelegatingLoadBalancer(AbstractLoadBalancer delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void addServers(List<Server> newServers) {
+        delegate.addServers(newServers);
+    }
+
+    @Override
+    public void markServerDown(Server server) {
+        delegate.markServerDown(server);
+    }
+
+    @Override
+    @Deprecated
+    public List<Server> getServerList(boolean availableOnly) {
+        return delegate.getServerList(availableOnly);
+    }
+
+    @Override
+    public List<Server> getReachableServers() {
+        return delegate.getReachableServers();
+    }
+
+    @Override
+    public List<Server> getAllServers() {
+        return delegate.getAllServers();
+    }
+
+    @Override
+    public List<Server> getServerList(ServerGroup serverGroup) {
+        return delegate.getServerList(serverGroup);
+    }
+
+    @Override
+    public LoadBalancerStats getLoadBalancerStats() {
+        return delegate.getLoadBalancerStats();
+    }
+
+    /**
+     * 容器关闭时停止原负载均衡器的 ping 和实例列表刷新
+     */
+    public void shutdown() {
+        if (delegate instanceof BaseLoadBalancer) {
+            ((BaseLoadBalancer) delegate).shutdown();
+        } else if (delegate instanceof VenusDelegatingLoadBalancer) {
+            ((VenusDelegatingLoadBalancer) delegate).shutdown();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package cn.springcloud.feign;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.BaseStream;
+
+/**
+ * provider 端返回 Iterator、Stream 时由 jackson 逐个元素写成 json 数组, 写出后关闭 Stream.
+ * jackson 按运行时类型把 Iterator 的实现类当成 bean 写成 {}, Stream 需要 jdk8 模块, 这里统一处理.
+ */
+@ControllerAdvice
+public class VenusElementStreamResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body instanceof Iterator || body instanceof BaseStream) {
+            return new Elements(body);
+        }
+        return body;
+    }
+
+    private static class Elements extends JsonSerializable.Base {
+        private final Object value;
+
+        Elements(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            Iterator<?> elements = value instanceof BaseStream ? ((BaseStream<?, ?>) value).iterator() : (Iterator<?>) value;
+            try {
+                gen.writeStartArray();
+                while (elements.hasNext()) {
+                    serializers.defaultSerializeValue(elements.next(), gen);
+                }
+                gen.writeEndArray();
+            } finally {
+                if (value instanceof BaseStream) {
+                    ((BaseStream<?, ?>) value).close();
+                }
+            }
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator gen, SerializerProvider serializers,
+                                      TypeSerializer typeSer) throws IOException {
+            serialize(gen, serializers);
+        }
+    }
+}
@@ -1,29 +1,66 @@
 package cn.springcloud.feign;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import feign.Feign;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.util.ServerInfo;
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.cloud.netflix.ribbon.RibbonClientSpecification;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
 import org.springframework.cloud.openfeign.AnnotatedParameterProcessor;
+import org.springframework.cloud.openfeign.ribbon.LoadBalancerFeignClient;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.method.annotation.RequestHeaderMethodArgumentResolver;
+import org.springframework.web.method.annotation.RequestParamMethodArgumentResolver;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.mvc.method.annotation.PathVariableMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 import org.springframework.web.servlet.mvc.method.annotation.RequestResponseBodyMethodProcessor;
 import org.springframework.web.servlet.mvc.method.annotation.ServletCookieValueMethodArgumentResolver;
 
 import javax.annotation.PostConstruct;
 import javax.validation.Valid;
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,6 +72,7 @@ import java.util.List;
 @Configuration
 @ConditionalOnClass(Feign.class)
 public class VenusFeignAutoConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VenusFeignAutoConfig.class);
 
     @Autowired
     private RequestMappingHandlerAdapter adapter;
@@ -42,51 +80,413 @@ public class VenusFeignAutoConfig {
     @Autowired
     private ConfigurableBeanFactory beanFactory;
 
+    private final VenusInterfaceParameterIndex interfaceParameterIndex = new VenusInterfaceParameterIndex();
+
+    @Value("${venus.feign.query-binder:false}")
+    private boolean queryBinder;
+
+    @Value("${venus.feign.compression:false}")
+    private boolean compression;
+
+    @Value("${venus.feign.compact-query-arrays:false}")
+    private boolean compactQueryArrays;
+
     @Bean
     public VenusRequestInterceptor feignRequestInterceptor() {
-        return new VenusRequestInterceptor();
+        VenusRequestInterceptor interceptor = new VenusRequestInterceptor();
+        interceptor.setCompactArrays(compactQueryArrays);
+        return interceptor;
+    }
+
+    /**
+     * GET 方法的 POJO 直接展开为 query, 跳过 json body 的序列化和反解析
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "venus.feign", name = "direct-query-encoding", havingValue = "true")
+    public VenusQueryEncoder feignQueryEncoder(ObjectFactory<HttpMessageConverters> messageConverters,
+                                               ObjectMapper objectMapper, ObjectProvider<VenusFeignMetrics> metrics) {
+        VenusQueryEncoder encoder = new VenusQueryEncoder(new SpringEncoder(messageConverters), objectMapper);
+        encoder.setMetrics(metrics.getIfAvailable());
+        encoder.setCompactArrays(compactQueryArrays);
+        return encoder;
+    }
+
+    /**
+     * 启动时只生成 client 代理, 接口解析推迟到第一次调用, 应用启动完成后在后台预热
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "venus.feign", name = "lazy-contract", havingValue = "true")
+    public static VenusLazyClientPostProcessor venusLazyClientPostProcessor(
+            @Value("${venus.feign.lazy-contract-warm-up-threads:2}") int warmUpThreads) {
+        return new VenusLazyClientPostProcessor(warmUpThreads);
+    }
+
+    /**
+     * 应用就绪前按接口解析结果预热所有 feign client, 预先建立连接
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "venus.feign", name = "warm-up", havingValue = "true")
+    public VenusFeignWarmUp venusFeignWarmUp(@Value("${venus.feign.warm-up-timeout:10000}") long timeoutMillis,
+                                             @Value("${venus.feign.warm-up-threads:4}") int threads,
+                                             @Value("${venus.feign.warm-up-connections:4}") int connections) {
+        return new VenusFeignWarmUp(timeoutMillis, threads, connections);
+    }
+
+    /**
+     * 启动时并行解析所有 feign 接口, client 按顺序创建时复用解析结果; 延迟创建 client 时不需要
+     */
+    @Bean
+    @ConditionalOnExpression("${venus.feign.contract-parse-threads:0} > 0 and !${venus.feign.lazy-contract:false}")
+    public static VenusContractPreParser venusContractPreParser(@Value("${venus.feign.contract-parse-threads}") int threads) {
+        return new VenusContractPreParser(threads);
+    }
+
+    /**
+     * 进程内有 feign 接口的实现 bean 时直接调用, 不经过 http
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "venus.feign", name = "local-invocation", havingValue = "true")
+    public static VenusLocalClientPostProcessor venusLocalClientPostProcessor(
+            @Value("${venus.feign.local-invocation-copy:true}") boolean copy) {
+        return new VenusLocalClientPostProcessor(copy);
     }
 
     @Bean
     public VenusSpringMvcContract feignSpringMvcContract(@Autowired(required = false) List<AnnotatedParameterProcessor> parameterProcessors,
-                                                         ConversionService conversionService) {
+                                                         ConversionService conversionService,
+                                                         @Value("${venus.feign.precompiled-contract:true}") boolean precompiled,
+                                                         ObjectProvider<VenusFeignMetrics> metrics,
+                                                         @Autowired(required = false) List<VenusClientDecorator> clientDecorators,
+                                                         ObjectProvider<VenusBinaryCodec> binaryCodec,
+                                                         @Value("${venus.feign.ndjson:false}") boolean ndjson,
+                                                         ObjectProvider<VenusApiVersionRouting> apiVersionRouting) {
         if (null == parameterProcessors) {
             parameterProcessors = new ArrayList<>();
         }
-        return new VenusSpringMvcContract(parameterProcessors, conversionService);
+        VenusSpringMvcContract contract = new VenusSpringMvcContract(parameterProcessors, conversionService);
+        // 使用 venus-cloud-feign-processor 编译期生成的解析结果
+        contract.setPrecompiled(precompiled);
+        contract.setMetrics(metrics.getIfAvailable());
+        contract.setClientDecorated(clientDecorators != null && !clientDecorators.isEmpty());
+        contract.setBinaryCodec(binaryCodec.getIfAvailable() != null);
+        contract.setNdjson(ndjson);
+        contract.setApiVersionRouting(apiVersionRouting.getIfAvailable() != null);
+        return contract;
     }
 
-    public static MethodParameter interfaceMethodParameter(MethodParameter parameter, Class annotationType) {
-        if (!parameter.hasParameterAnnotation(annotationType)) {
-            for (Class<?> itf : parameter.getDeclaringClass().getInterfaces()) {
-                try {
-                    Method method = itf.getMethod(parameter.getMethod().getName(), parameter.getMethod().getParameterTypes());
-                    MethodParameter itfParameter = new MethodParameter(method, parameter.getParameterIndex());
-                    if (itfParameter.hasParameterAnnotation(annotationType)) {
-                        return itfParameter;
+    /**
+     * 容器中有 {@link VenusClientDecorator} 时包装所有 feign client 的 Client
+     */
+    @Bean
+    public static VenusClientPostProcessor venusClientPostProcessor() {
+        return new VenusClientPostProcessor();
+    }
+
+    /**
+     * 合并 {@link VenusBatch} 方法的调用
+     */
+    @Bean
+    public static VenusBatchClientPostProcessor venusBatchClientPostProcessor() {
+        return new VenusBatchClientPostProcessor();
+    }
+
+    /**
+     * 支持 CompletableFuture、Mono、Flux 返回值
+     */
+    @Bean
+    public static VenusAsyncClientPostProcessor venusAsyncClientPostProcessor(
+            @Value("${venus.feign.async-threads:0}") int threads,
+            @Value("${venus.feign.async-queue:100}") int queue,
+            @Value("${venus.feign.virtual-threads:false}") boolean virtualThreads) {
+        return new VenusAsyncClientPostProcessor(threads, queue, virtualThreads);
+    }
+
+    /**
+     * 支持 InputStream、Resource、StreamingResponseBody 返回值不经过 decoder 缓冲
+     */
+    @Bean
+    public static VenusStreamingClientPostProcessor venusStreamingClientPostProcessor() {
+        return new VenusStreamingClientPostProcessor();
+    }
+
+    /**
+     * InputStream 类型的参数和返回值, provider 和 feign 的编码共用
+     */
+    @Bean
+    public static VenusInputStreamHttpMessageConverter venusInputStreamHttpMessageConverter() {
+        return new VenusInputStreamHttpMessageConverter();
+    }
+
+    /**
+     * provider 端把 Stream、Iterator 返回值逐个元素写成 json 数组
+     */
+    @Bean
+    public static VenusElementStreamResponseAdvice venusElementStreamResponseAdvice() {
+        return new VenusElementStreamResponseAdvice();
+    }
+
+    /**
+     * provider 端按 Accept 把 Stream、Iterator 返回值写成 NDJSON
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "venus.feign", name = "ndjson", havingValue = "true")
+    public static WebMvcConfigurer venusNdjsonConfigurer(ObjectMapper objectMapper) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                converters.add(new VenusNdjsonHttpMessageConverter(objectMapper));
+            }
+        };
+    }
+
+    /**
+     * GET 请求的响应缓存
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "venus.feign", name = "response-cache", havingValue = "true")
+    public VenusResponseCache venusResponseCache(@Value("${venus.feign.response-cache-max-entries:1000}") int maxEntries,
+                                                 @Value("${venus.feign.response-cache-max-body-bytes:65536}") int maxBodyBytes,
+                                                 ObjectProvider<VenusFeignMetrics> metrics) {
+        VenusResponseCache cache = new VenusResponseCache(maxEntries, maxBodyBytes);
+        cache.setMetrics(metrics.getIfAvailable());
+        return cache;
+    }
+
+    /**
+     * 合并 {@link VenusSingleFlight} 方法同时发出的相同请求
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "venus.feign", name = "single-flight", havingValue = "true")
+    public VenusRequestCoalescer venusRequestCoalescer() {
+        return new VenusRequestCoalescer();
+    }
+
+    /**
+     * {@link VenusHedged} 方法超过近期耗时分位数未返回时发出对冲请求
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "venus.feign", name = "hedging", havingValue = "true")
+    public VenusHedging venusHedging(@Value("${venus.feign.hedging-budget:10}") int budgetPercent,
+                                     @Value("${venus.feign.hedging-min-delay:5}") long minDelayMillis,
+                                     @Value("${venus.feign.hedging-threads:200}") int threads,
+                                     @Value("${venus.feign.virtual-threads:false}") boolean virtualThreads,
+                                     ObjectProvider<VenusFeignMetrics> metrics) {
+        VenusHedging hedging = new VenusHedging(budgetPercent, minDelayMillis, threads, virtualThreads);
+        hedging.setMetrics(metrics.getIfAvailable());
+        return hedging;
+    }
+
+    /**
+     * 对冲请求选择实例时排除主请求的实例
+     */
+    @Configuration
+    @ConditionalOnClass(SpringClientFactory.class)
+    @ConditionalOnProperty(prefix = "venus.feign", name = "hedging", havingValue = "true")
+    protected static class VenusHedgingRibbonConfig {
+
+        @Bean
+        public RibbonClientSpecification venusHedgingRibbonSpecification() {
+            return new RibbonClientSpecification("default.venusHedging",
+                    new Class<?>[]{VenusHedgeLoadBalancer.RibbonConfiguration.class});
+        }
+    }
+
+    /**
+     * 按服务或方法自适应限制并发, 超过上限的调用直接失败
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "venus.feign", name = "concurrency-limit", havingValue = "true")
+    public VenusConcurrencyLimiter venusConcurrencyLimiter(@Value("${venus.feign.concurrency-limit-initial:20}") int initialLimit,
+                                                           @Value("${venus.feign.concurrency-limit-max:200}") int maxLimit,
+                                                           @Value("${venus.feign.concurrency-limit-per-method:false}") boolean perMethod,
+                                                           ObjectProvider<VenusFeignMetrics> metrics) {
+        VenusConcurrencyLimiter limiter = new VenusConcurrencyLimiter(initialLimit, maxLimit, perMethod);
+        limiter.setMetrics(metrics.getIfAvailable());
+        return limiter;
+    }
+
+    /**
+     * micrometer 指标, classpath 中有 micrometer 时可开启, 没有 MeterRegistry 的 bean 时注册到全局 registry
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = "venus.feign", name = "metrics", havingValue = "true")
+    protected static class VenusFeignMetricsConfig {
+
+        @Bean
+        public VenusFeignMetrics venusFeignMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            return new VenusFeignMetrics(meterRegistry.getIfUnique(() -> Metrics.globalRegistry));
+        }
+    }
+
+    /**
+     * 路径中 {version} 使用默认值的请求优先发往注册信息中声明了该版本的实例
+     */
+    @Configuration
+    @ConditionalOnClass(SpringClientFactory.class)
+    @ConditionalOnProperty(prefix = "venus.feign", name = "api-version-routing", havingValue = "true")
+    protected static class VenusApiVersionRoutingConfig {
+
+        @Bean
+        public VenusApiVersionRouting venusApiVersionRouting() {
+            return new VenusApiVersionRouting();
+        }
+
+        /**
+         * default. 开头的配置对所有 ribbon client 生效
+         */
+        @Bean
+        public RibbonClientSpecification venusApiVersionRibbonSpecification() {
+            return new RibbonClientSpecification("default.venusApiVersionRouting",
+                    new Class<?>[]{VenusApiVersionLoadBalancer.RibbonConfiguration.class});
+        }
+    }
+
+    /**
+     * consumer 端把 query 超长的 GET 请求改为 POST 表单发送
+     */
+    @Bean
+    @ConditionalOnExpression("${venus.feign.query-max-length:0} > 0")
+    public VenusQueryOverflow venusQueryOverflow(@Value("${venus.feign.query-max-length}") int maxLength) {
+        return new VenusQueryOverflow(maxLength);
+    }
+
+    /**
+     * provider 端把 {@link VenusQueryOverflow} 转换的 POST 请求还原为 GET, 与 consumer 端的 query-max-length 分开配置
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "venus.feign", name = "query-overflow-filter", havingValue = "true")
+    public VenusQueryOverflowFilter venusQueryOverflowFilter() {
+        return new VenusQueryOverflowFilter();
+    }
+
+    /**
+     * 请求体和响应体压缩, consumer 按 provider 声明的 Accept-Encoding 压缩请求体, provider 按请求的 Accept-Encoding 压缩响应
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "venus.feign", name = "compression", havingValue = "true")
+    protected static class VenusCompressionConfig {
+
+        @Bean
+        public VenusCompression venusCompression(@Value("${venus.feign.compression-min-size:2048}") int minSize,
+                                                 ObjectProvider<VenusFeignMetrics> metrics) {
+            VenusCompression compression = new VenusCompression(minSize);
+            compression.setMetrics(metrics.getIfAvailable());
+            return compression;
+        }
+
+        @Bean
+        public VenusCompressionFilter venusCompressionFilter(@Value("${venus.feign.compression-min-size:2048}") int minSize,
+                                                             @Value("${venus.feign.compression-mime-types:}") String mimeTypes,
+                                                             ObjectProvider<VenusFeignMetrics> metrics) {
+            VenusCompressionFilter filter = new VenusCompressionFilter(minSize);
+            filter.setMetrics(metrics.getIfAvailable());
+            if (StringUtils.hasText(mimeTypes)) {
+                filter.setMimeTypes(MediaType.parseMediaTypes(mimeTypes));
+            }
+            return filter;
+        }
+    }
+
+    /**
+     * consumer 和 provider 之间用 smile 代替 json, 通过 Accept/Content-Type 协商, 对方不支持时使用 json
+     */
+    @Configuration
+    @ConditionalOnClass(SmileFactory.class)
+    @ConditionalOnProperty(prefix = "venus.feign", name = "binary-codec", havingValue = "true")
+    protected static class VenusBinaryCodecConfig {
+
+        @Bean
+        public VenusBinaryCodec venusBinaryCodec() {
+            return new VenusBinaryCodec();
+        }
+
+        /**
+         * 与 json 使用相同的 jackson 配置, 替换 spring mvc 默认的 smile converter, 同时用于 provider 和 feign 的编解码
+         */
+        @Bean
+        public MappingJackson2SmileHttpMessageConverter venusSmileHttpMessageConverter(
+                ObjectProvider<Jackson2ObjectMapperBuilder> builder) {
+            ObjectMapper objectMapper = new ObjectMapper(new SmileFactory());
+            builder.getIfAvailable(Jackson2ObjectMapperBuilder::new).configure(objectMapper);
+            return new MappingJackson2SmileHttpMessageConverter(objectMapper);
+        }
+    }
+
+    /**
+     * feign client 使用 HTTP/2(h2c) 传输, 多个调用复用连接
+     */
+    @Configuration
+    @ConditionalOnClass(LoadBalancerFeignClient.class)
+    @ConditionalOnProperty(prefix = "venus.feign", name = "http2", havingValue = "true")
+    protected static class VenusHttp2ClientConfig {
+
+        @Bean
+        public static VenusHttp2ClientPostProcessor venusHttp2ClientPostProcessor() {
+            return new VenusHttp2ClientPostProcessor();
+        }
+    }
+
+    /**
+     * provider 端的 tomcat 支持 h2c 升级, stream 数和空闲超时与 consumer 的默认配置一致.
+     * tomcat 8.5 丢失升级请求的 query 和请求体, 某个 stream 被客户端取消(如读超时)时还会 GOAWAY 整个连接,
+     * 这时不添加, consumer 探测后按 HTTP/1.1 调用
+     */
+    @Configuration
+    @ConditionalOnClass(Tomcat.class)
+    @ConditionalOnProperty(prefix = "venus.feign", name = "http2", havingValue = "true")
+    protected static class VenusHttp2ServerConfig {
+
+        @Bean
+        public WebServerFactoryCustomizer<TomcatServletWebServerFactory> venusHttp2Customizer(
+                @Value("${venus.feign.http2-max-streams:100}") int maxStreams,
+                @Value("${venus.feign.http2-keep-alive:60000}") long keepAlive) {
+            if (ServerInfo.getServerNumber().startsWith("8.")) {
+                LOGGER.warn("venus.feign.http2 is not supported on {}, provider keeps HTTP/1.1", ServerInfo.getServerInfo());
+                return factory -> {
+                };
+            }
+            return factory -> factory.addConnectorCustomizers(connector -> {
+                for (UpgradeProtocol protocol : connector.findUpgradeProtocols()) {
+                    if (protocol instanceof Http2Protocol) {
+                        return;
                     }
-                } catch (NoSuchMethodException e) {
-                    continue;
                 }
-            }
+                Http2Protocol http2 = new Http2Protocol();
+                http2.setMaxConcurrentStreams(maxStreams);
+                http2.setKeepAliveTimeout(keepAlive);
+                connector.addUpgradeProtocol(http2);
+            });
         }
-        return parameter;
+    }
+
+    public static MethodParameter interfaceMethodParameter(MethodParameter parameter, Class annotationType) {
+        return VenusInterfaceParameterIndex.resolve(parameter, annotationType);
+    }
+
+    /**
+     * 所有 controller 方法初始化完成后建立接口参数索引
+     */
+    @Bean
+    public SmartInitializingSingleton venusInterfaceParameterIndexer(RequestMappingHandlerMapping handlerMapping) {
+        return () -> interfaceParameterIndex.index(handlerMapping.getHandlerMethods().values());
     }
 
     @PostConstruct
     public void modifyArgumentResolvers() {
         List<HandlerMethodArgumentResolver> list = new ArrayList<>(adapter.getArgumentResolvers());
+        VenusInterfaceParameterIndex index = this.interfaceParameterIndex;
 
         // PathVariable 支持接口注解
         list.add(0, new PathVariableMethodArgumentResolver() {
             @Override
             public boolean supportsParameter(MethodParameter parameter) {
-                return super.supportsParameter(interfaceMethodParameter(parameter, PathVariable.class));
+                return super.supportsParameter(index.get(parameter, PathVariable.class));
             }
 
             @Override
             protected NamedValueInfo createNamedValueInfo(MethodParameter parameter) {
-                return super.createNamedValueInfo(interfaceMethodParameter(parameter, PathVariable.class));
+                return super.createNamedValueInfo(index.get(parameter, PathVariable.class));
             }
         });
 
@@ -94,12 +494,12 @@ public class VenusFeignAutoConfig {
         list.add(0, new RequestHeaderMethodArgumentResolver(beanFactory) {
             @Override
             public boolean supportsParameter(MethodParameter parameter) {
-                return super.supportsParameter(interfaceMethodParameter(parameter, RequestHeader.class));
+                return super.supportsParameter(index.get(parameter, RequestHeader.class));
             }
 
             @Override
             protected NamedValueInfo createNamedValueInfo(MethodParameter parameter) {
-                return super.createNamedValueInfo(interfaceMethodParameter(parameter, RequestHeader.class));
+                return super.createNamedValueInfo(index.get(parameter, RequestHeader.class));
             }
         });
 
@@ -107,28 +507,65 @@ public class VenusFeignAutoConfig {
         list.add(0, new ServletCookieValueMethodArgumentResolver(beanFactory) {
             @Override
             public boolean supportsParameter(MethodParameter parameter) {
-                return super.supportsParameter(interfaceMethodParameter(parameter, CookieValue.class));
+                return super.supportsParameter(index.get(parameter, CookieValue.class));
             }
 
             @Override
             protected NamedValueInfo createNamedValueInfo(MethodParameter parameter) {
-                return super.createNamedValueInfo(interfaceMethodParameter(parameter, CookieValue.class));
+                return super.createNamedValueInfo(index.get(parameter, CookieValue.class));
             }
         });
 
-        // RequestBody Valid 支持接口注解
+        // RequestParam 支持接口注解, 批量方法的集合参数不再被当作 POJO 绑定
+        list.add(0, new RequestParamMethodArgumentResolver(beanFactory, false) {
+            @Override
+            public boolean supportsParameter(MethodParameter parameter) {
+                return super.supportsParameter(index.get(parameter, RequestParam.class));
+            }
+
+            @Override
+            protected NamedValueInfo createNamedValueInfo(MethodParameter parameter) {
+                return super.createNamedValueInfo(index.get(parameter, RequestParam.class));
+            }
+        });
+
+        // RequestBody Valid 支持接口注解, 开启压缩时按 Content-Encoding 解压请求体
+        boolean compression = this.compression;
         list.add(0, new RequestResponseBodyMethodProcessor(adapter.getMessageConverters()) {
             @Override
             public boolean supportsParameter(MethodParameter parameter) {
-                return super.supportsParameter(interfaceMethodParameter(parameter, RequestBody.class));
+                return super.supportsParameter(index.get(parameter, RequestBody.class));
             }
 
             @Override
             protected void validateIfApplicable(WebDataBinder binder, MethodParameter methodParam) {
-                super.validateIfApplicable(binder, interfaceMethodParameter(methodParam, Valid.class));
+                super.validateIfApplicable(binder, index.get(methodParam, Valid.class));
+            }
+
+            @Override
+            protected <T> Object readWithMessageConverters(NativeWebRequest webRequest, MethodParameter parameter,
+                                                           Type paramType) throws IOException,
+                    HttpMediaTypeNotSupportedException, HttpMessageNotReadableException {
+                if (!compression) {
+                    return super.readWithMessageConverters(webRequest, parameter, paramType);
+                }
+                ServletServerHttpRequest inputMessage = VenusCompressionFilter.decompress(createInputMessage(webRequest));
+                Object arg = readWithMessageConverters(inputMessage, parameter, paramType);
+                if (arg == null && checkRequired(parameter)) {
+                    throw new HttpMessageNotReadableException("Required request body is missing: "
+                            + parameter.getExecutable().toGenericString());
+                }
+                return arg;
             }
         });
 
+        // GET 方法的 POJO 参数按 consumer 展开的 query 格式绑定
+        if (queryBinder) {
+            VenusQueryBinder binder = new VenusQueryBinder(beanFactory.getBean(ObjectMapper.class));
+            binder.setCompactArrays(compactQueryArrays);
+            list.add(0, new VenusQueryArgumentResolver(binder, index));
+        }
+
         // 修改ArgumentResolvers, 支持接口注解
         adapter.setArgumentResolvers(list);
     }
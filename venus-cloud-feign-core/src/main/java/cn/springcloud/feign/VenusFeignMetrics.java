@@ -0,0 +1,224 @@
+package cn.springcloud.feign;
+
+import feign.RequestTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * venus-cloud-feign 的 micrometer 指标: GET 方法 POJO 转 query 的耗时、query 长度和参数个数、转换失败次数,
+ * 以及每个接口的解析耗时. 同一个 configKey 的指标只注册一次, 请求时不再查找 registry.
+ */
+public class VenusFeignMetrics {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry registry;
+
+    private final ConcurrentMap<String, QueryMeters> queryMeters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, AtomicLong> parseNanos = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Counter[]> cacheCounters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, DistributionSummary> compressionRatios = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Counter> hedgeCounters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Counter> rejectedCounters = new ConcurrentHashMap<>();
+
+    public VenusFeignMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 记录一次 POJO 转 query
+     *
+     * @param queries 转换生成的 query
+     */
+    public void recordQuery(String configKey, long nanos, RequestTemplate template,
+                            Map<String, Collection<String>> queries) {
+        String key = configKey == null ? UNKNOWN : configKey;
+        QueryMeters meters = queryMeters.get(key);
+        if (meters == null) {
+            meters = queryMeters.computeIfAbsent(key, QueryMeters::new);
+        }
+        meters.conversion.record(nanos, TimeUnit.NANOSECONDS);
+        int count = 0;
+        for (Collection<String> values : queries.values()) {
+            count += values.size();
+        }
+        meters.params.record(count);
+        // 包含方法上原有的 query, 不含开头的 ?
+        String queryLine = template.queryLine();
+        meters.length.record(queryLine.isEmpty() ? 0 : queryLine.length() - 1);
+    }
+
+    public void recordFailure(String configKey, Throwable e) {
+        Counter.builder("venus.feign.query.failures")
+                .description("GET 方法 POJO 转 query 失败的次数")
+                .tag("method", configKey == null ? UNKNOWN : configKey)
+                .tag("exception", e.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 累计接口的解析耗时, 缓存命中不计入
+     */
+    public void recordParse(Class<?> targetType, long nanos) {
+        AtomicLong total = parseNanos.get(targetType);
+        if (total == null) {
+            total = parseNanos.computeIfAbsent(targetType, type -> {
+                AtomicLong value = new AtomicLong();
+                TimeGauge.builder("venus.feign.contract.parse.time", value, TimeUnit.NANOSECONDS, AtomicLong::doubleValue)
+                        .description("接口所有方法的解析耗时")
+                        .tag("client", type.getName())
+                        .register(registry);
+                return value;
+            });
+        }
+        total.addAndGet(nanos);
+    }
+
+    /**
+     * 响应缓存命中或未命中
+     */
+    public void recordCache(String configKey, boolean hit) {
+        String key = configKey == null ? UNKNOWN : configKey;
+        Counter[] counters = cacheCounters.get(key);
+        if (counters == null) {
+            counters = cacheCounters.computeIfAbsent(key, method -> new Counter[]{
+                    cacheCounter(method, "miss"), cacheCounter(method, "hit")});
+        }
+        counters[hit ? 1 : 0].increment();
+    }
+
+    private Counter cacheCounter(String configKey, String result) {
+        return Counter.builder("venus.feign.cache.requests")
+                .description("响应缓存的请求次数")
+                .tag("method", configKey)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public void registerCacheSize(Map<?, ?> entries) {
+        Gauge.builder("venus.feign.cache.size", entries, Map::size)
+                .description("响应缓存的条数")
+                .register(registry);
+    }
+
+    /**
+     * 一次压缩的压缩比(压缩后 / 压缩前)
+     *
+     * @param direction request 为 consumer 压缩的请求体, response 为 provider 压缩的响应体
+     */
+    public void recordCompression(String direction, String encoding, long originalBytes, long compressedBytes) {
+        if (originalBytes <= 0) {
+            return;
+        }
+        String key = direction + ' ' + encoding;
+        DistributionSummary ratio = compressionRatios.get(key);
+        if (ratio == null) {
+            ratio = compressionRatios.computeIfAbsent(key, k -> DistributionSummary.builder("venus.feign.compression.ratio")
+                    .description("压缩后与压缩前的字节数之比")
+                    .tag("direction", direction)
+                    .tag("encoding", encoding)
+                    .register(registry));
+        }
+        ratio.record((double) compressedBytes / originalBytes);
+    }
+
+    /**
+     * 对冲请求的次数
+     *
+     * @param event sent 为发出对冲, won 为对冲请求先返回, throttled 为超出预算未发出
+     */
+    public void recordHedge(String configKey, String event) {
+        String method = configKey == null ? UNKNOWN : configKey;
+        Counter counter = hedgeCounters.get(method + ' ' + event);
+        if (counter == null) {
+            counter = hedgeCounters.computeIfAbsent(method + ' ' + event, key -> Counter.builder("venus.feign.hedge.requests")
+                    .description("对冲请求的次数")
+                    .tag("method", method)
+                    .tag("event", event)
+                    .register(registry));
+        }
+        counter.increment();
+    }
+
+    /**
+     * 方法当前的对冲等待时间
+     *
+     * @param nanos 从 state 读取等待的纳秒数
+     */
+    public <T> void registerHedgeDelay(String configKey, T state, ToDoubleFunction<T> nanos) {
+        TimeGauge.builder("venus.feign.hedge.delay", state, TimeUnit.NANOSECONDS, nanos)
+                .description("按近期耗时分位数计算的对冲等待时间")
+                .tag("method", configKey == null ? UNKNOWN : configKey)
+                .register(registry);
+    }
+
+    /**
+     * 服务或方法的并发上限和正在进行的请求数
+     *
+     * @param key 服务名或 configKey
+     */
+    public <T> void registerConcurrencyLimit(String key, T state, ToDoubleFunction<T> limit, ToDoubleFunction<T> inflight) {
+        Gauge.builder("venus.feign.concurrency.limit", state, limit)
+                .description("自适应的并发上限")
+                .tag("client", key)
+                .register(registry);
+        Gauge.builder("venus.feign.concurrency.inflight", state, inflight)
+                .description("正在进行的请求数")
+                .tag("client", key)
+                .register(registry);
+    }
+
+    /**
+     * 超过并发上限被拒绝的调用
+     */
+    public void recordConcurrencyRejected(String key) {
+        Counter counter = rejectedCounters.get(key);
+        if (counter == null) {
+            counter = rejectedCounters.computeIfAbsent(key, client -> Counter.builder("venus.feign.concurrency.rejected")
+                    .description("超过并发上限被拒绝的调用次数")
+                    .tag("client", client)
+                    .register(registry));
+        }
+        counter.increment();
+    }
+
+    private class QueryMeters {
+        private final Timer conversion;
+        private final DistributionSummary length;
+        private final DistributionSummary params;
+
+        QueryMeters(String configKey) {
+            conversion = Timer.builder("venus.feign.query.conversion")
+                    .description("GET 方法 POJO 转 query 的耗时")
+                    .tag("method", configKey)
+                    .register(registry);
+            length = DistributionSummary.builder("venus.feign.query.length")
+                    .description("query 的长度")
+                    .baseUnit("bytes")
+                    .tag("method", configKey)
+                    .register(registry);
+            params = DistributionSummary.builder("venus.feign.query.params")
+                    .description("POJO 展开的参数个数")
+                    .tag("method", configKey)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package cn.springcloud.feign;
+
+import feign.Client;
+import feign.Contract;
+import feign.Feign;
+import feign.MethodMetadata;
+import feign.Param;
+import feign.Request;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Target;
+import feign.Util;
+import feign.codec.Decoder;
+import feign.codec.Encoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.cloud.openfeign.FeignContext;
+import org.springframework.cloud.openfeign.VenusFeignClients;
+import org.springframework.cloud.openfeign.ribbon.LoadBalancerFeignClient;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.CollectionFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 应用启动完成、发布 ApplicationReadyEvent 之前预热所有 feign client, 在 timeout 内完成多少算多少:
+ * <ul>
+ * <li>按实例数(最多 connections 个)经过 client 发出 OPTIONS 请求, 完成 ribbon 子容器初始化、DNS 解析和建连, 连接留在连接池中;</li>
+ * <li>按 contract 的解析结果用合成参数执行一次 Expander、encoder 和 RequestInterceptor, 并用与返回类型对应的空 json 执行一次 decoder,
+ * 提前完成 ConversionService 和 ObjectMapper 的类型解析缓存.</li>
+ * </ul>
+ * 结果按 client 输出日志, 预热失败不影响启动.
+ */
+public class VenusFeignWarmUp implements ApplicationListener<ApplicationStartedEvent>, BeanFactoryAware {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VenusFeignWarmUp.class);
+
+    private static final boolean RIBBON_PRESENT = ClassUtils.isPresent(
+            "org.springframework.cloud.openfeign.ribbon.LoadBalancerFeignClient", VenusFeignWarmUp.class.getClassLoader());
+
+    private static final byte[] EMPTY_OBJECT = "{}".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] EMPTY_ARRAY = "[]".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final long timeoutMillis;
+
+    private final int threads;
+
+    private final int connections;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private ListableBeanFactory beanFactory;
+
+    /**
+     * @param timeoutMillis 预热的总时间, 超过后不再等待, 未完成的 client 记为超时
+     * @param threads       同时预热的 client 数
+     * @param connections   每个 client 最多预先建立连接的实例数, 0 表示不建立连接
+     */
+    public VenusFeignWarmUp(long timeoutMillis, int threads, int connections) {
+        this.timeoutMillis = timeoutMillis;
+        this.threads = threads;
+        this.connections = connections;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = (ListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+        if (started.compareAndSet(false, true)) {
+            warmUp();
+        }
+    }
+
+    private void warmUp() {
+        List<VenusFeignClients.Definition> definitions = VenusFeignClients.find(beanFactory);
+        if (definitions.isEmpty()) {
+            return;
+        }
+        FeignContext context = beanFactory.getBean(FeignContext.class);
+        long start = System.currentTimeMillis();
+        long deadline = start + timeoutMillis;
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, definitions.size())), runnable -> {
+            Thread thread = new Thread(runnable, "venus-feign-warm-up-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<Report, Future<?>> futures = new LinkedHashMap<>();
+        for (VenusFeignClients.Definition definition : definitions) {
+            Report report = new Report(definition);
+            futures.put(report, executor.submit(() -> warmUp(context, definition, report, deadline)));
+        }
+        executor.shutdown();
+
+        int methods = 0;
+        int warmedMethods = 0;
+        int warmedConnections = 0;
+        int unfinished = 0;
+        for (Map.Entry<Report, Future<?>> entry : futures.entrySet()) {
+            Report report = entry.getKey();
+            boolean finished = await(entry.getValue(), deadline);
+            unfinished += finished ? 0 : 1;
+            methods += report.methods;
+            warmedMethods += report.warmedMethods.get();
+            warmedConnections += report.warmedConnections.get();
+            LOGGER.info("warm up feign client {}: {}/{} methods, {}/{} connections{}", report.definition,
+                    report.warmedMethods.get(), report.methods, report.warmedConnections.get(), report.connections,
+                    finished ? "" : ", timed out");
+        }
+        executor.shutdownNow();
+        LOGGER.info("warmed up {} feign clients in {}ms: {}/{} methods, {} connections{}", definitions.size(),
+                System.currentTimeMillis() - start, warmedMethods, methods, warmedConnections,
+                unfinished == 0 ? "" : ", " + unfinished + " clients timed out after " + timeoutMillis + "ms");
+    }
+
+    private static boolean await(Future<?> future, long deadline) {
+        try {
+            future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return false;
+        } catch (ExecutionException e) {
+            LOGGER.warn("warm up feign client failed", e.getCause());
+            return true;
+        }
+    }
+
+    private void warmUp(FeignContext context, VenusFeignClients.Definition definition, Report report, long deadline) {
+        String name = definition.getName();
+        Request.Options options = context.getInstance(name, Request.Options.class);
+        if (options == null) {
+            options = new Request.Options();
+        }
+        // 先建立连接, 耗时最长, 也包含 ribbon 子容器的初始化
+        Client client = client(context, definition);
+        report.connections = Math.min(connections, instances(definition));
+        for (int i = 0; i < report.connections && System.currentTimeMillis() < deadline; i++) {
+            try {
+                Response response = client.execute(Request.create("OPTIONS", definition.getUrl(),
+                        Collections.emptyMap(), null, StandardCharsets.UTF_8), options);
+                if (response.body() != null) {
+                    // 读完响应体, 连接才会回到连接池
+                    Util.toByteArray(response.body().asInputStream());
+                    response.close();
+                }
+                report.warmedConnections.incrementAndGet();
+            } catch (Exception e) {
+                LOGGER.debug("connect {} failed", definition, e);
+            }
+        }
+
+        Contract contract = context.getInstance(name, Contract.class);
+        Encoder encoder = context.getInstance(name, Encoder.class);
+        Decoder decoder = context.getInstance(name, Decoder.class);
+        Collection<RequestInterceptor> interceptors = context.getInstances(name, RequestInterceptor.class) == null
+                ? Collections.emptyList() : context.getInstances(name, RequestInterceptor.class).values();
+        Map<String, Method> methods = new LinkedHashMap<>();
+        for (Method method : definition.getType().getMethods()) {
+            methods.put(Feign.configKey(definition.getType(), method), method);
+        }
+        Target<?> target = new Target.HardCodedTarget<>(definition.getType(), name, definition.getUrl());
+        List<MethodMetadata> metadata = contract.parseAndValidatateMetadata(definition.getType());
+        report.methods = metadata.size();
+        for (MethodMetadata md : metadata) {
+            if (System.currentTimeMillis() >= deadline || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                Request request = request(md, methods.get(md.configKey()), encoder, interceptors, target);
+                decode(md, decoder, request);
+                report.warmedMethods.incrementAndGet();
+            } catch (Exception e) {
+                LOGGER.debug("warm up {} failed", md.configKey(), e);
+            }
+        }
+    }
+
+    /**
+     * 与 FeignClientFactoryBean 一致, 指定 url 时不经过负载均衡
+     */
+    private static Client client(FeignContext context, VenusFeignClients.Definition definition) {
+        Client client = context.getInstance(definition.getName(), Client.class);
+        if (client == null) {
+            return new Client.Default(null, null);
+        }
+        if (RIBBON_PRESENT && !definition.isLoadBalanced()) {
+            return Ribbon.unwrap(client);
+        }
+        return client;
+    }
+
+    /**
+     * ribbon 中可用的实例数, 依次发出请求时按负载均衡规则轮流选择
+     */
+    private int instances(VenusFeignClients.Definition definition) {
+        if (!definition.isLoadBalanced() || !RIBBON_PRESENT) {
+            return 1;
+        }
+        return Math.max(1, Ribbon.reachableServers(beanFactory, definition.getName()));
+    }
+
+    /**
+     * 与 feign 构造请求的顺序一致: 展开参数、编码请求体、执行拦截器
+     */
+    private static Request request(MethodMetadata md, Method method, Encoder encoder,
+                                   Collection<RequestInterceptor> interceptors, Target<?> target) {
+        Object[] args = new Object[method.getParameterCount()];
+        Type[] types = method.getGenericParameterTypes();
+        for (int i = 0; i < args.length; i++) {
+            args[i] = syntheticValue(types[i]);
+        }
+        RequestTemplate template = new RequestTemplate(md.template());
+        Map<String, Object> variables = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Collection<String>> entry : md.indexToName().entrySet()) {
+            Object value = args[entry.getKey()];
+            if (value == null) {
+                continue;
+            }
+            Param.Expander expander = md.indexToExpander() == null ? null : md.indexToExpander().get(entry.getKey());
+            Object expanded = expander == null || value instanceof Iterable ? value : expander.expand(value);
+            for (String name : entry.getValue()) {
+                variables.put(name, expanded);
+            }
+        }
+        template.resolve(variables);
+        if (md.bodyIndex() != null && args[md.bodyIndex()] != null) {
+            encoder.encode(args[md.bodyIndex()], md.bodyType(), template);
+        } else if (!md.formParams().isEmpty()) {
+            Map<String, Object> form = new LinkedHashMap<>();
+            for (String name : md.formParams()) {
+                if (variables.containsKey(name)) {
+                    form.put(name, variables.get(name));
+                }
+            }
+            encoder.encode(form, Encoder.MAP_STRING_WILDCARD, template);
+        }
+        for (RequestInterceptor interceptor : interceptors) {
+            interceptor.apply(template);
+        }
+        return target.apply(template);
+    }
+
+    private static void decode(MethodMetadata md, Decoder decoder, Request request) throws Exception {
+        Class<?> type = ResolvableType.forType(md.returnType()).resolve(Object.class);
+        if (type == void.class || type == Void.class || type == Response.class) {
+            return;
+        }
+        Map<String, Collection<String>> headers = Collections.singletonMap("Content-Type",
+                Collections.singletonList("application/json;charset=UTF-8"));
+        Response response = Response.builder().status(200).reason("OK").headers(headers)
+                .body(emptyJson(md.returnType())).request(request).build();
+        decoder.decode(response, md.returnType());
+    }
+
+    /**
+     * 与返回类型对应的空 json, 集合的元素类型和 bean 的属性类型在 ObjectMapper 创建反序列化器时一起解析
+     */
+    private static byte[] emptyJson(Type type) {
+        ResolvableType resolvable = ResolvableType.forType(type);
+        Class<?> raw = resolvable.resolve(Object.class);
+        if (HttpEntity.class.isAssignableFrom(raw) || raw == Optional.class) {
+            return emptyJson(resolvable.getGeneric(0).getType());
+        }
+        if (raw.isArray() || Collection.class.isAssignableFrom(raw)) {
+            return EMPTY_ARRAY;
+        }
+        return BeanUtils.isSimpleValueType(raw) ? NULL : EMPTY_OBJECT;
+    }
+
+    /**
+     * 合成的参数值, 无法构造时为 null, 该参数不参与预热
+     */
+    static Object syntheticValue(Type type) {
+        Class<?> raw = ResolvableType.forType(type).resolve(Object.class);
+        if (raw.isPrimitive() || ClassUtils.isPrimitiveWrapper(raw)) {
+            Class<?> primitive = ClassUtils.resolvePrimitiveIfNecessary(raw);
+            return primitive == void.class ? null : Array.get(Array.newInstance(primitive, 1), 0);
+        }
+        if (raw == String.class) {
+            return "0";
+        }
+        if (raw.isEnum()) {
+            Object[] constants = raw.getEnumConstants();
+            return constants.length == 0 ? null : constants[0];
+        }
+        if (raw.isArray()) {
+            return Array.newInstance(raw.getComponentType(), 0);
+        }
+        if (Collection.class.isAssignableFrom(raw)) {
+            return CollectionFactory.createCollection(raw, 0);
+        }
+        if (Map.class.isAssignableFrom(raw)) {
+            return CollectionFactory.createMap(raw, 0);
+        }
+        if (raw == Optional.class) {
+            return Optional.empty();
+        }
+        if (raw == Date.class) {
+            return new Date();
+        }
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers()) || !ClassUtils.hasConstructor(raw)) {
+            return null;
+        }
+        try {
+            return BeanUtils.instantiateClass(raw);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static class Report {
+        private final VenusFeignClients.Definition definition;
+        private final AtomicInteger warmedMethods = new AtomicInteger();
+        private final AtomicInteger warmedConnections = new AtomicInteger();
+        private volatile int methods;
+        private volatile int connections;
+
+        Report(VenusFeignClients.Definition definition) {
+            this.definition = definition;
+        }
+    }
+
+    /**
+     * 只在 classpath 中有 ribbon 时加载
+     */
+    private static class Ribbon {
+
+        static Client unwrap(Client client) {
+            return client instanceof LoadBalancerFeignClient ? ((LoadBalancerFeignClient) client).getDelegate() : client;
+        }
+
+        static int reachableServers(ListableBeanFactory beanFactory, String name) {
+            if (beanFactory.getBeanNamesForType(SpringClientFactory.class).length == 0) {
+                return 0;
+            }
+            return beanFactory.getBean(SpringClientFactory.class).getLoadBalancer(name).getReachableServers().size();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package cn.springcloud.feign;
+
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.Server;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+/**
+ * 包装 ribbon client 的负载均衡器, 记录 {@link VenusHedging} 主请求选择的实例, 对冲请求选到同一实例时重新选择,
+ * 最多选择可用实例数次, 仍是该实例(如只有一个可用实例)时使用它
+ */
+public class VenusHedgeLoadBalancer extends VenusDelegatingLoadBalancer {
+
+    public VenusHedgeLoadBalancer(AbstractLoadBalancer delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public Server chooseServer(Object key) {
+        VenusHedging.Choice choice = VenusHedging.currentChoice();
+        Server server = delegate.chooseServer(key);
+        if (choice == null) {
+            return server;
+        }
+        if (choice.excluded != null) {
+            int servers = delegate.getReachableServers().size();
+            for (int i = 1; i < servers && choice.excluded.equals(server); i++) {
+                server = delegate.chooseServer(key);
+            }
+        }
+        choice.chosen = server;
+        return server;
+    }
+
+    /**
+     * 注册到所有 ribbon client 的子容器, 包装其中的负载均衡器
+     */
+    static class RibbonConfiguration {
+
+        @Bean
+        public static BeanPostProcessor venusHedgeLoadBalancerPostProcessor() {
+            return new PostProcessor();
+        }
+    }
+
+    /**
+     * 在 {@link VenusApiVersionLoadBalancer} 之后包装, 重新选择时仍按版本过滤
+     */
+    private static class PostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof AbstractLoadBalancer && !(bean instanceof VenusHedgeLoadBalancer)) {
+                return new VenusHedgeLoadBalancer((AbstractLoadBalancer) bean);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return 1;
+        }
+    }
+}
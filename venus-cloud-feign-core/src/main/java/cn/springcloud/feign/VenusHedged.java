@@ -0,0 +1,23 @@
+package cn.springcloud.feign;
+
+import java.lang.annotation.*;
+
+/**
+ * feign 接口或 GET 方法上声明后, 超过该方法近期耗时的 {@link #percentile()} 分位仍未返回时再发出一次相同的请求,
+ * 先返回的响应生效, 需开启 venus.feign.hedging.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface VenusHedged {
+
+    /**
+     * 是否对冲, 可在方法上关闭接口上的声明
+     */
+    boolean value() default true;
+
+    /**
+     * 等待时间取该方法近期耗时的分位数, 0 ~ 100
+     */
+    double percentile() default 95;
+}
@@ -0,0 +1,365 @@
+package cn.springcloud.feign;
+
+import com.netflix.loadbalancer.Server;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 对 {@link VenusHedged} 的 GET 方法发出对冲请求: 请求在该方法近期耗时的分位数内未返回时, 再发出一次相同的请求,
+ * 由负载均衡选择主请求以外的实例(见 {@link VenusHedgeLoadBalancer}), 先返回的非 5xx 响应生效, 另一个响应返回后关闭;
+ * 两次都失败时返回后完成的一次. 调用方线程被中断(如 hystrix 超时)时请求继续进行, 返回后关闭响应.
+ * 耗时按方法记录在指数衰减的直方图中, 样本不足时不对冲; 对冲次数不超过请求数的 budgetPercent%.
+ * 请求在最多 threads 个线程中发出, 线程都在使用时主请求在调用方线程直接发出, 不再对冲.
+ */
+public class VenusHedging implements VenusClientDecorator, DisposableBean {
+
+    /**
+     * 解析时写入 {@link VenusHedged} 方法的模板, 值为分位数
+     */
+    static final String HEDGE_HEADER = "Venus-Hedge";
+
+    /**
+     * 每个方法至少记录这么多次耗时才开始对冲
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * 预算以 1/100 次对冲为单位, 最多累积 10 次
+     */
+    private static final long MAX_BALANCE = 1000;
+
+    private static final ThreadLocal<Choice> CHOICE = new ThreadLocal<>();
+
+    private final int budgetPercent;
+
+    private final long minDelayNanos;
+
+    private final ExecutorService executor;
+
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private final AtomicLong balance = new AtomicLong(MAX_BALANCE);
+
+    private VenusFeignMetrics metrics;
+
+    /**
+     * @param budgetPercent  对冲请求占请求数的最大百分比
+     * @param minDelayMillis 分位数低于该值时按该值等待
+     * @param threads        发出请求的最大线程数
+     * @param virtualThreads JDK 21+ 上每次请求使用一个虚拟线程, 不再受 threads 限制
+     */
+    public VenusHedging(int budgetPercent, long minDelayMillis, int threads, boolean virtualThreads) {
+        this.budgetPercent = budgetPercent;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        if (virtualThreads && VenusVirtualThreads.isAvailable()) {
+            this.executor = VenusVirtualThreads.newExecutor("venus-feign-hedge-");
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(0, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+                Thread thread = new Thread(r, "venus-feign-hedge-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void setMetrics(VenusFeignMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int getOrder() {
+        // 在缓存和合并之内, 只对冲实际发出的请求; 在编解码和压缩之外, 两次请求各自完整处理
+        return 250;
+    }
+
+    @Override
+    public Client decorate(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        Collection<String> hedge = request.headers().get(HEDGE_HEADER);
+        if (!"GET".equals(request.method()) || hedge == null || hedge.isEmpty()) {
+            return client.execute(request, options);
+        }
+        String configKey = VenusClientDecorator.configKey(request);
+        Histogram histogram = histograms.get(configKey);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(configKey, this::newHistogram);
+        }
+        balance.getAndUpdate(value -> Math.min(MAX_BALANCE, value + budgetPercent));
+        long delay = histogram.percentile(Double.parseDouble(hedge.iterator().next()));
+        histogram.delay = delay < 0 ? 0 : Math.max(delay, minDelayNanos);
+        if (delay < 0) {
+            // 样本不足, 在调用方线程直接发出
+            return executeDirectly(client, request, options, histogram);
+        }
+
+        Attempts attempts = new Attempts();
+        Choice primaryChoice = new Choice(null);
+        CompletableFuture<Response> primary;
+        try {
+            primary = attempt(client, request, options, histogram, attempts, primaryChoice);
+        } catch (RejectedExecutionException e) {
+            // 线程都在使用, 不对冲
+            record(configKey, "throttled");
+            return executeDirectly(client, request, options, histogram);
+        }
+        try {
+            return primary.get(histogram.delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // 继续对冲
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primary.thenAccept(response -> Util.ensureClosed(response.body()));
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            // 主请求失败时不对冲, 与未对冲的请求一致
+            throw rethrow(e.getCause());
+        }
+        if (balance.getAndUpdate(value -> value >= 100 ? value - 100 : value) < 100) {
+            record(configKey, "throttled");
+            return await(primary);
+        }
+        CompletableFuture<Response> hedged;
+        try {
+            hedged = attempt(client, request, options, histogram, attempts, new Choice(primaryChoice.chosen));
+        } catch (RejectedExecutionException e) {
+            record(configKey, "throttled");
+            return await(primary);
+        }
+        record(configKey, "sent");
+        Response response = await(attempts.winner);
+        if (hedged.isDone() && !hedged.isCompletedExceptionally() && hedged.join() == response) {
+            record(configKey, "won");
+        }
+        return response;
+    }
+
+    private Response executeDirectly(Client client, Request request, Request.Options options,
+                                     Histogram histogram) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return client.execute(request, options);
+        } finally {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 在线程池中发出一次请求, 负载均衡的选择记录在 choice 中, 线程都在使用时抛出 {@link RejectedExecutionException}
+     */
+    private CompletableFuture<Response> attempt(Client client, Request request, Request.Options options,
+                                                Histogram histogram, Attempts attempts, Choice choice) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            CHOICE.set(choice);
+            try {
+                Response response = client.execute(request, options);
+                histogram.record(System.nanoTime() - start);
+                future.complete(response);
+                if (response.status() < 500) {
+                    attempts.succeed(response);
+                } else {
+                    attempts.fail(response, null);
+                }
+            } catch (Throwable e) {
+                histogram.record(System.nanoTime() - start);
+                future.completeExceptionally(e);
+                attempts.fail(null, e);
+            } finally {
+                CHOICE.remove();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 当前线程在对冲中发出的请求在负载均衡中的选择, 没有时返回 null
+     */
+    static Choice currentChoice() {
+        return CHOICE.get();
+    }
+
+    /**
+     * 一次请求在负载均衡中的选择: 对冲请求排除主请求选择的实例
+     */
+    static class Choice {
+        final Server excluded;
+        volatile Server chosen;
+
+        Choice(Server excluded) {
+            this.excluded = excluded;
+        }
+    }
+
+    /**
+     * 一次对冲的两个请求: 第一个非 5xx 的响应完成 winner, 之后的响应关闭; 两次都失败时 winner 以后完成的 5xx 响应或异常完成
+     */
+    private static class Attempts {
+        private final CompletableFuture<Response> winner = new CompletableFuture<>();
+        private final AtomicInteger failures = new AtomicInteger();
+        /**
+         * 先失败的 5xx 响应, winner 完成后关闭
+         */
+        private final AtomicReference<Response> failed = new AtomicReference<>();
+
+        void succeed(Response response) {
+            if (!winner.complete(response)) {
+                Util.ensureClosed(response.body());
+            }
+            closeFailed();
+        }
+
+        void fail(Response response, Throwable error) {
+            if (failures.incrementAndGet() < 2) {
+                if (response != null) {
+                    failed.set(response);
+                    if (winner.isDone()) {
+                        closeFailed();
+                    }
+                }
+                return;
+            }
+            closeFailed();
+            if (response == null) {
+                winner.completeExceptionally(error);
+            } else if (!winner.complete(response)) {
+                Util.ensureClosed(response.body());
+            }
+        }
+
+        private void closeFailed() {
+            Response response = failed.getAndSet(null);
+            if (response != null) {
+                Util.ensureClosed(response.body());
+            }
+        }
+    }
+
+    /**
+     * 等待响应, 被中断时响应返回后关闭
+     */
+    private static Response await(CompletableFuture<Response> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.thenAccept(response -> Util.ensureClosed(response.body()));
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof IOException) {
+            return new IOException(cause.getMessage(), cause);
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        throw (Error) cause;
+    }
+
+    private Histogram newHistogram(String configKey) {
+        Histogram histogram = new Histogram();
+        if (metrics != null) {
+            metrics.registerHedgeDelay(configKey, histogram, value -> value.delay);
+        }
+        return histogram;
+    }
+
+    private void record(String configKey, String event) {
+        if (metrics != null) {
+            metrics.recordHedge(configKey, event);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 按 1.2 倍递增的桶记录耗时(100us ~ 约 2 分钟), 每记录 1024 次所有桶减半, 分位数偏向近期的耗时
+     */
+    static class Histogram {
+        private static final int BUCKETS = 80;
+        private static final long[] BOUNDS = new long[BUCKETS];
+
+        static {
+            double bound = TimeUnit.MICROSECONDS.toNanos(100);
+            for (int i = 0; i < BUCKETS; i++) {
+                BOUNDS[i] = (long) bound;
+                bound *= 1.2;
+            }
+        }
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong recorded = new AtomicLong();
+
+        /**
+         * 最近一次计算的等待时间, 样本不足时为 0
+         */
+        private volatile long delay;
+
+        void record(long nanos) {
+            int index = 0;
+            while (index < BUCKETS - 1 && BOUNDS[index] < nanos) {
+                index++;
+            }
+            counts.incrementAndGet(index);
+            if ((recorded.incrementAndGet() & 1023) == 0) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    counts.getAndUpdate(i, count -> count / 2);
+                }
+            }
+        }
+
+        /**
+         * 分位数所在桶的上界, 样本不足时返回 -1
+         */
+        long percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += counts.get(i);
+            }
+            if (total < MIN_SAMPLES) {
+                return -1;
+            }
+            long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                cumulative += counts.get(i);
+                if (cumulative >= rank) {
+                    return BOUNDS[i];
+                }
+            }
+            return BOUNDS[BUCKETS - 1];
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package cn.springcloud.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.cloud.openfeign.ribbon.CachingSpringLoadBalancerFactory;
+import org.springframework.cloud.openfeign.ribbon.LoadBalancerFeignClient;
+import org.springframework.core.env.PropertyResolver;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于 JDK 11+ HttpClient 的 feign 传输, http 地址通过 h2c 升级使用 HTTP/2, 多个调用复用同一个连接上的 stream;
+ * provider 不支持 HTTP/2 时 JDK 自动使用 HTTP/1.1. HttpClient 通过反射调用, 编译和运行在 Java 8 上不受影响.
+ * 每个 feign client(负载均衡前的服务名, 指定 url 时为 host)有 connections 个连接, 每个连接同时最多 maxStreams 个 stream,
+ * 都用满时等待不超过连接超时; 连接空闲超过 keepAlive 后下次使用时重建.
+ * JDK 在新连接的第一个请求上完成 h2c 升级, tomcat 8.5 会丢失这个请求的 query 和请求体, 所以每个实例先用 OPTIONS 探测,
+ * 探测的响应为 HTTP/2 后才按 HTTP/2 发送请求, 之前请求固定为 HTTP/1.1, 不会触发升级. 请求失败、响应退回 HTTP/1.1、
+ * 或实例空闲超过 keepAlive 的一半(provider 可能已关闭连接)时重新探测.
+ * 配置项 venus.feign.http2-max-streams、http2-connections、http2-keep-alive 可以按 client 覆盖, 如
+ * {@code venus.feign.http2-client.<name>.max-streams}
+ */
+public class VenusHttp2Client implements Client {
+
+    private static final String PREFIX = "venus.feign.http2";
+
+    /**
+     * HttpClient 不允许设置的请求头
+     */
+    private static final Collection<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    private static final ThreadLocal<String> CLIENT_NAME = new ThreadLocal<>();
+
+    static {
+        RESTRICTED_HEADERS.addAll(Arrays.asList("Connection", "Content-Length", "Expect", "Host", "Upgrade"));
+    }
+
+    private final PropertyResolver properties;
+
+    private final ConcurrentMap<String, Pool> pools = new ConcurrentHashMap<>();
+
+    public VenusHttp2Client(PropertyResolver properties) {
+        this.properties = properties;
+    }
+
+    public static boolean isAvailable() {
+        return Jdk.AVAILABLE;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        URI uri = URI.create(request.url());
+        String name = CLIENT_NAME.get();
+        if (name == null) {
+            name = uri.getHost();
+        }
+        Pool pool = pools.get(name);
+        if (pool == null) {
+            pool = pools.computeIfAbsent(name, this::newPool);
+        }
+        Connection connection = pool.next();
+        Peer peer = connection.peer(uri.getAuthority(), pool.maxStreams);
+        Semaphore streams = peer.streams;
+        try {
+            if (!streams.tryAcquire(options.connectTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("no HTTP/2 stream available for " + uri.getAuthority() + " in "
+                        + options.connectTimeoutMillis() + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        // stream 在响应体读完关闭后才结束, 这时释放
+        Runnable release = () -> {
+            connection.release();
+            streams.release();
+        };
+        boolean sent = false;
+        try {
+            Object client = connection.client(options, pool.keepAlive);
+            boolean http2 = peer.http2(client, uri, options, pool.keepAlive);
+            Object response;
+            try {
+                response = exchange(client, request, uri, options, http2 ? null : Jdk.HTTP_1_1);
+            } catch (IOException | RuntimeException e) {
+                // 连接可能已断开, 下次请求重新探测, 不在实际请求上升级
+                peer.reset();
+                throw e;
+            }
+            if (http2 && !Jdk.HTTP_2.equals(Jdk.invoke(Jdk.RESPONSE_VERSION, response))) {
+                peer.reset();
+            }
+            Response converted = convert(response, request, release);
+            sent = true;
+            return converted;
+        } finally {
+            if (!sent) {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * 用不带请求体和 query 的 OPTIONS 完成 h2c 升级, 返回响应是否为 HTTP/2. 升级请求带有请求体时很多服务端不支持,
+     * tomcat 8.5 还会丢失升级请求的 query
+     */
+    private static boolean probe(Object client, URI uri, Request.Options options) {
+        try {
+            URI probe = new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), null, null);
+            Object response = exchange(client, Request.create("OPTIONS", probe.toString(),
+                    Collections.<String, Collection<String>>emptyMap(), null, null), probe, options, null);
+            Util.ensureClosed((InputStream) Jdk.invoke(Jdk.BODY, response));
+            return Jdk.HTTP_2.equals(Jdk.invoke(Jdk.RESPONSE_VERSION, response));
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private Pool newPool(String name) {
+        return new Pool(property(name, "max-streams", 100), property(name, "connections", 1),
+                property(name, "keep-alive", 60000));
+    }
+
+    private int property(String name, String key, int defaultValue) {
+        Integer value = properties.getProperty(PREFIX + "-client." + name + "." + key, Integer.class);
+        return value != null ? value : properties.getProperty(PREFIX + "-" + key, Integer.class, defaultValue);
+    }
+
+    /**
+     * @param version 不为 null 时固定该请求的协议版本
+     */
+    private static Object exchange(Object client, Request request, URI uri, Request.Options options, Object version)
+            throws IOException {
+        try {
+            Object builder = Jdk.NEW_REQUEST_BUILDER.invoke(null, uri);
+            for (Map.Entry<String, Collection<String>> header : request.headers().entrySet()) {
+                if (!RESTRICTED_HEADERS.contains(header.getKey())) {
+                    for (String value : header.getValue()) {
+                        Jdk.HEADER.invoke(builder, header.getKey(), value);
+                    }
+                }
+            }
+            Object body = request.body() == null ? Jdk.NO_BODY.invoke(null) : Jdk.OF_BYTE_ARRAY.invoke(null, (Object) request.body());
+            Jdk.METHOD.invoke(builder, request.method(), body);
+            Jdk.TIMEOUT.invoke(builder, Duration.ofMillis(options.readTimeoutMillis()));
+            if (version != null) {
+                Jdk.REQUEST_VERSION.invoke(builder, version);
+            }
+            return Jdk.SEND.invoke(client, Jdk.BUILD_REQUEST.invoke(builder), Jdk.OF_INPUT_STREAM);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(cause.getMessage());
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Response convert(Object response, Request request, Runnable onClose) {
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> headers = (Map<String, List<String>>) Jdk.invoke(Jdk.HEADERS_MAP, Jdk.invoke(Jdk.HEADERS, response));
+        return Response.builder()
+                .status((Integer) Jdk.invoke(Jdk.STATUS_CODE, response))
+                .reason("")
+                .headers(new LinkedHashMap<String, Collection<String>>(headers))
+                .body(new DrainingInputStream((InputStream) Jdk.invoke(Jdk.BODY, response), onClose), contentLength(headers))
+                .request(request)
+                .build();
+    }
+
+    private static Integer contentLength(Map<String, List<String>> headers) {
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if ("content-length".equals(header.getKey().toLowerCase(Locale.ROOT)) && !header.getValue().isEmpty()) {
+                long length = Long.parseLong(header.getValue().get(0));
+                return length > Integer.MAX_VALUE ? null : (int) length;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * decoder 读完 json 后通常不再读到流末尾, 直接关闭时 JDK 会发送 RST_STREAM 取消 stream;
+     * 关闭前读完剩余的少量数据, 让 stream 正常结束
+     */
+    private static class DrainingInputStream extends FilterInputStream {
+        private static final int MAX_DRAIN = 8192;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private final Runnable onClose;
+
+        DrainingInputStream(InputStream in, Runnable onClose) {
+            super(in);
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                byte[] buffer = new byte[512];
+                int drained = 0;
+                int read;
+                while (drained <= MAX_DRAIN && (read = in.read(buffer)) >= 0) {
+                    drained += read;
+                }
+            } catch (IOException e) {
+                // 直接关闭
+            } finally {
+                try {
+                    in.close();
+                } finally {
+                    onClose.run();
+                }
+            }
+        }
+    }
+
+    private static class Pool {
+        private final int maxStreams;
+        private final long keepAlive;
+        private final Connection[] connections;
+        private final AtomicInteger index = new AtomicInteger();
+
+        Pool(int maxStreams, int connections, long keepAlive) {
+            this.maxStreams = maxStreams;
+            this.keepAlive = keepAlive;
+            this.connections = new Connection[Math.max(1, connections)];
+            for (int i = 0; i < this.connections.length; i++) {
+                this.connections[i] = new Connection();
+            }
+        }
+
+        /**
+         * 正在进行的请求最少的连接
+         */
+        Connection next() {
+            int start = index.getAndIncrement() & Integer.MAX_VALUE;
+            Connection next = connections[start % connections.length];
+            for (int i = 1; i < connections.length; i++) {
+                Connection connection = connections[(start + i) % connections.length];
+                if (connection.inflight.get() < next.inflight.get()) {
+                    next = connection;
+                }
+            }
+            next.inflight.incrementAndGet();
+            return next;
+        }
+    }
+
+    /**
+     * 一个 HttpClient, 对每个 provider 实例保持一个 HTTP/2 连接
+     */
+    private static class Connection {
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final ConcurrentMap<String, Peer> peers = new ConcurrentHashMap<>();
+        private Object client;
+        private long lastUsed;
+
+        Peer peer(String authority, int maxStreams) {
+            Peer peer = peers.get(authority);
+            return peer != null ? peer : peers.computeIfAbsent(authority, key -> new Peer(maxStreams));
+        }
+
+        synchronized Object client(Request.Options options, long keepAlive) {
+            long now = System.currentTimeMillis();
+            if (client != null && inflight.get() == 1 && now - lastUsed > keepAlive) {
+                Jdk.shutdown(client);
+                client = null;
+                // 新连接需要重新升级
+                peers.values().forEach(Peer::reset);
+            }
+            if (client == null) {
+                client = Jdk.newClient(options.connectTimeoutMillis());
+            }
+            lastUsed = now;
+            return client;
+        }
+
+        void release() {
+            inflight.decrementAndGet();
+        }
+    }
+
+    /**
+     * 连接到一个 provider 实例的 HTTP/2 连接
+     */
+    private static class Peer {
+        private final Semaphore streams;
+        /**
+         * 探测结果, null 为需要探测
+         */
+        private volatile Boolean http2;
+        private volatile long probed;
+        private volatile long lastUsed;
+
+        Peer(int maxStreams) {
+            this.streams = new Semaphore(maxStreams);
+        }
+
+        /**
+         * 是否按 HTTP/2 发送, 需要时先探测. HTTP/2 的实例空闲超过 keepAlive 的一半, 或 HTTP/1.1 的实例探测超过 keepAlive 后重新探测
+         */
+        boolean http2(Object client, URI uri, Request.Options options, long keepAlive) {
+            long now = System.currentTimeMillis();
+            if (!expired(now, keepAlive)) {
+                lastUsed = now;
+                return http2;
+            }
+            synchronized (this) {
+                if (expired(now, keepAlive)) {
+                    http2 = probe(client, uri, options);
+                    probed = System.currentTimeMillis();
+                }
+                lastUsed = now;
+                return http2;
+            }
+        }
+
+        private boolean expired(long now, long keepAlive) {
+            Boolean state = http2;
+            return state == null || (state ? now - lastUsed > keepAlive / 2 : now - probed > keepAlive);
+        }
+
+        void reset() {
+            http2 = null;
+        }
+    }
+
+    /**
+     * 对服务名发出的请求, 在负载均衡前记录服务名, 用于选择 client 的连接池和配置
+     */
+    public static class LoadBalanced extends LoadBalancerFeignClient {
+
+        public LoadBalanced(VenusHttp2Client delegate, CachingSpringLoadBalancerFactory lbClientFactory,
+                            SpringClientFactory clientFactory) {
+            super(delegate, lbClientFactory, clientFactory);
+        }
+
+        @Override
+        public Response execute(Request request, Request.Options options) throws IOException {
+            CLIENT_NAME.set(URI.create(request.url()).getHost());
+            try {
+                return super.execute(request, options);
+            } finally {
+                CLIENT_NAME.remove();
+            }
+        }
+    }
+
+    /**
+     * java.net.http 的反射调用
+     */
+    private static final class Jdk {
+        static final boolean AVAILABLE;
+        static Method NEW_CLIENT_BUILDER;
+        static Method VERSION;
+        static Method FOLLOW_REDIRECTS;
+        static Method CONNECT_TIMEOUT;
+        static Method BUILD_CLIENT;
+        static Object HTTP_2;
+        static Object HTTP_1_1;
+        static Object REDIRECT_NORMAL;
+        static Method NEW_REQUEST_BUILDER;
+        static Method HEADER;
+        static Method METHOD;
+        static Method TIMEOUT;
+        static Method REQUEST_VERSION;
+        static Method BUILD_REQUEST;
+        static Method NO_BODY;
+        static Method OF_BYTE_ARRAY;
+        static Object OF_INPUT_STREAM;
+        static Method SEND;
+        static Method STATUS_CODE;
+        static Method HEADERS;
+        static Method HEADERS_MAP;
+        static Method BODY;
+        static Method RESPONSE_VERSION;
+        static Method SHUTDOWN_NOW;
+
+        static {
+            boolean available;
+            try {
+                Class<?> client = Class.forName("java.net.http.HttpClient");
+                Class<?> clientBuilder = Class.forName("java.net.http.HttpClient$Builder");
+                Class<?> version = Class.forName("java.net.http.HttpClient$Version");
+                Class<?> redirect = Class.forName("java.net.http.HttpClient$Redirect");
+                Class<?> request = Class.forName("java.net.http.HttpRequest");
+                Class<?> requestBuilder = Class.forName("java.net.http.HttpRequest$Builder");
+                Class<?> publisher = Class.forName("java.net.http.HttpRequest$BodyPublisher");
+                Class<?> publishers = Class.forName("java.net.http.HttpRequest$BodyPublishers");
+                Class<?> handler = Class.forName("java.net.http.HttpResponse$BodyHandler");
+                Class<?> handlers = Class.forName("java.net.http.HttpResponse$BodyHandlers");
+                Class<?> response = Class.forName("java.net.http.HttpResponse");
+                Class<?> headers = Class.forName("java.net.http.HttpHeaders");
+                NEW_CLIENT_BUILDER = client.getMethod("newBuilder");
+                VERSION = clientBuilder.getMethod("version", version);
+                FOLLOW_REDIRECTS = clientBuilder.getMethod("followRedirects", redirect);
+                CONNECT_TIMEOUT = clientBuilder.getMethod("connectTimeout", Duration.class);
+                BUILD_CLIENT = clientBuilder.getMethod("build");
+                HTTP_2 = version.getField("HTTP_2").get(null);
+                HTTP_1_1 = version.getField("HTTP_1_1").get(null);
+                REDIRECT_NORMAL = redirect.getField("NORMAL").get(null);
+                NEW_REQUEST_BUILDER = request.getMethod("newBuilder", URI.class);
+                HEADER = requestBuilder.getMethod("header", String.class, String.class);
+                METHOD = requestBuilder.getMethod("method", String.class, publisher);
+                TIMEOUT = requestBuilder.getMethod("timeout", Duration.class);
+                REQUEST_VERSION = requestBuilder.getMethod("version", version);
+                BUILD_REQUEST = requestBuilder.getMethod("build");
+                NO_BODY = publishers.getMethod("noBody");
+                OF_BYTE_ARRAY = publishers.getMethod("ofByteArray", byte[].class);
+                OF_INPUT_STREAM = handlers.getMethod("ofInputStream").invoke(null);
+                SEND = client.getMethod("send", request, handler);
+                STATUS_CODE = response.getMethod("statusCode");
+                HEADERS = response.getMethod("headers");
+                HEADERS_MAP = headers.getMethod("map");
+                BODY = response.getMethod("body");
+                RESPONSE_VERSION = response.getMethod("version");
+                SHUTDOWN_NOW = findMethod(client, "shutdownNow");
+                available = true;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                available = false;
+            }
+            AVAILABLE = available;
+        }
+
+        private Jdk() {
+        }
+
+        /**
+         * 与 Client.Default 一样跟随重定向
+         */
+        static Object newClient(int connectTimeoutMillis) {
+            try {
+                Object builder = NEW_CLIENT_BUILDER.invoke(null);
+                VERSION.invoke(builder, HTTP_2);
+                FOLLOW_REDIRECTS.invoke(builder, REDIRECT_NORMAL);
+                if (connectTimeoutMillis > 0) {
+                    CONNECT_TIMEOUT.invoke(builder, Duration.ofMillis(connectTimeoutMillis));
+                }
+                return BUILD_CLIENT.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("failed to create HttpClient", e);
+            }
+        }
+
+        /**
+         * 调用不抛出受检异常的方法, 如 HttpResponse 的访问方法
+         */
+        static Object invoke(Method method, Object target) {
+            try {
+                return method.invoke(target);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+
+        /**
+         * JDK 21+ 立即关闭连接, 之前的版本在 HttpClient 不再被引用后关闭
+         */
+        static void shutdown(Object client) {
+            if (SHUTDOWN_NOW != null) {
+                try {
+                    SHUTDOWN_NOW.invoke(client);
+                } catch (ReflectiveOperationException e) {
+                    // 等待回收
+                }
+            }
+        }
+
+        private static Method findMethod(Class<?> type, String name) {
+            try {
+                return type.getMethod(name);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    }
+}
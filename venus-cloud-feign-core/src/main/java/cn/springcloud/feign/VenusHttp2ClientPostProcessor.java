@@ -0,0 +1,47 @@
+package cn.springcloud.feign;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.cloud.openfeign.ribbon.CachingSpringLoadBalancerFactory;
+import org.springframework.cloud.openfeign.ribbon.LoadBalancerFeignClient;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+/**
+ * 把负载均衡 client 的底层传输换成 {@link VenusHttp2Client}, 指定 url 的 client 也使用其中的传输. JDK 11 以下保持原来的传输
+ */
+public class VenusHttp2ClientPostProcessor implements BeanPostProcessor, BeanFactoryAware, EnvironmentAware {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VenusHttp2ClientPostProcessor.class);
+
+    private BeanFactory beanFactory;
+
+    private Environment environment;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof LoadBalancerFeignClient) || bean instanceof VenusHttp2Client.LoadBalanced) {
+            return bean;
+        }
+        if (!VenusHttp2Client.isAvailable()) {
+            LOGGER.warn("HTTP/2 transport requires JDK 11+, feign keeps {}", ((LoadBalancerFeignClient) bean).getDelegate());
+            return bean;
+        }
+        return new VenusHttp2Client.LoadBalanced(new VenusHttp2Client(environment),
+                beanFactory.getBean(CachingSpringLoadBalancerFactory.class), beanFactory.getBean(SpringClientFactory.class));
+    }
+}
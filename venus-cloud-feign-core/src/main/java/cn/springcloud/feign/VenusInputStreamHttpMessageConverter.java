@@ -0,0 +1,50 @@
+package cn.springcloud.feign;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 读写 InputStream 类型的请求体和返回值, 不缓冲: provider 端 {@code @RequestBody InputStream} 直接拿到请求的输入流,
+ * 返回 InputStream 时边读边写出并关闭; feign 的 SpringEncoder 用它把 InputStream 参数原样写入请求体.
+ * 可以读写任意 Content-Type, 没有指定时使用 application/octet-stream.
+ */
+public class VenusInputStreamHttpMessageConverter extends AbstractHttpMessageConverter<InputStream> {
+
+    public VenusInputStreamHttpMessageConverter() {
+        super(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return InputStream.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return true;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return true;
+    }
+
+    @Override
+    protected InputStream readInternal(Class<? extends InputStream> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        return inputMessage.getBody();
+    }
+
+    @Override
+    protected void writeInternal(InputStream inputStream, HttpOutputMessage outputMessage) throws IOException {
+        try (InputStream in = inputStream) {
+            StreamUtils.copy(in, outputMessage.getBody());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package cn.springcloud.feign;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.SynthesizingMethodParameter;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.CookieValue;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.validation.Valid;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * controller 方法参数到接口方法参数的索引, 启动时为所有 HandlerMethod 建好,
+ * 请求时 argument resolver 只查表, 不再反射查找接口方法.
+ * 支持间接继承的接口和泛型接口(实现方法的参数类型是接口类型变量的具体类型).
+ */
+public class VenusInterfaceParameterIndex {
+
+    /**
+     * 支持写在接口上的参数注解
+     */
+    private static final List<Class<? extends Annotation>> ANNOTATION_TYPES = Arrays.asList(
+            PathVariable.class, RequestHeader.class, RequestParam.class, CookieValue.class, RequestBody.class, Valid.class);
+
+    /**
+     * 实现方法 -> [注解][参数下标] 对应的参数, 注解写在实现方法上时就是实现方法的参数
+     */
+    private final ConcurrentMap<Method, MethodParameter[][]> index = new ConcurrentHashMap<>();
+
+    public void index(Collection<HandlerMethod> handlerMethods) {
+        for (HandlerMethod handlerMethod : handlerMethods) {
+            // 与 resolver 收到的参数使用同一个(桥接后的)方法作为 key
+            MethodParameter[] parameters = handlerMethod.getMethodParameters();
+            if (parameters.length > 0) {
+                parameters(parameters[0].getMethod());
+            }
+        }
+    }
+
+    public MethodParameter get(MethodParameter parameter, Class<? extends Annotation> annotationType) {
+        int type = ANNOTATION_TYPES.indexOf(annotationType);
+        if (type < 0 || parameter.getParameterIndex() < 0) {
+            return resolve(parameter, annotationType);
+        }
+        return parameters(parameter.getMethod())[type][parameter.getParameterIndex()];
+    }
+
+    private MethodParameter[][] parameters(Method method) {
+        MethodParameter[][] parameters = index.get(method);
+        if (parameters == null) {
+            parameters = new MethodParameter[ANNOTATION_TYPES.size()][method.getParameterCount()];
+            for (int i = 0; i < method.getParameterCount(); i++) {
+                // 与 HandlerMethod 的参数一致, 合成注解使 value/name 等 @AliasFor 属性生效
+                MethodParameter parameter = new SynthesizingMethodParameter(method, i);
+                for (int type = 0; type < ANNOTATION_TYPES.size(); type++) {
+                    parameters[type][i] = resolve(parameter, ANNOTATION_TYPES.get(type));
+                }
+            }
+            index.putIfAbsent(method, parameters);
+        }
+        return parameters;
+    }
+
+    /**
+     * 参数本身没有注解时, 依次查找实现类的所有接口中被该方法实现的接口方法
+     */
+    static MethodParameter resolve(MethodParameter parameter, Class<? extends Annotation> annotationType) {
+        if (parameter.hasParameterAnnotation(annotationType) || parameter.getMethod() == null) {
+            return parameter;
+        }
+        for (Method candidate : interfaceMethods(parameter.getMethod())) {
+            MethodParameter itfParameter = new SynthesizingMethodParameter(candidate, parameter.getParameterIndex());
+            if (itfParameter.hasParameterAnnotation(annotationType)) {
+                return itfParameter;
+            }
+        }
+        return parameter;
+    }
+
+    /**
+     * 实现类的所有接口中被该方法实现的接口方法
+     */
+    static List<Method> interfaceMethods(Method method) {
+        List<Method> methods = new ArrayList<>();
+        for (Class<?> itf : ClassUtils.getAllInterfacesForClassAsSet(method.getDeclaringClass())) {
+            for (Method candidate : itf.getMethods()) {
+                if (isOverrideFor(method, candidate)) {
+                    methods.add(candidate);
+                }
+            }
+        }
+        return methods;
+    }
+
+    private static boolean isOverrideFor(Method method, Method candidate) {
+        if (!candidate.getName().equals(method.getName())
+                || candidate.getParameterCount() != method.getParameterCount()) {
+            return false;
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (Arrays.equals(candidate.getParameterTypes(), parameterTypes)) {
+            return true;
+        }
+        // 泛型接口, 按实现类解析接口方法的参数类型
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i] != ResolvableType.forMethodParameter(candidate, i, method.getDeclaringClass()).resolve()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package cn.springcloud.feign;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.openfeign.VenusLazyTargeter;
+import org.springframework.context.ApplicationListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 把 openfeign 的 Targeter 换成 {@link VenusLazyTargeter}, 应用启动完成后在后台预热所有 client
+ */
+public class VenusLazyClientPostProcessor implements BeanPostProcessor, ApplicationListener<ApplicationReadyEvent> {
+
+    private final int warmUpThreads;
+
+    private final List<VenusLazyTargeter> targeters = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param warmUpThreads 后台预热的线程数, 0 表示不预热, 只在第一次调用时创建
+     */
+    public VenusLazyClientPostProcessor(int warmUpThreads) {
+        this.warmUpThreads = warmUpThreads;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (VenusLazyTargeter.isTargeter(bean)) {
+            VenusLazyTargeter targeter = new VenusLazyTargeter(bean, warmUpThreads > 0);
+            targeters.add(targeter);
+            return targeter;
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (warmUpThreads > 0) {
+            for (VenusLazyTargeter targeter : targeters) {
+                targeter.warmUp(warmUpThreads);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package cn.springcloud.feign;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.cloud.openfeign.VenusLocalTargeter;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import javax.validation.Validator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 把 openfeign 的 Targeter 换成 {@link VenusLocalTargeter}, 容器刷新完成后开启本地调用
+ */
+public class VenusLocalClientPostProcessor implements BeanPostProcessor, BeanFactoryAware, ApplicationContextAware,
+        ApplicationListener<ContextRefreshedEvent> {
+
+    private final boolean copy;
+
+    private final List<VenusLocalTargeter> targeters = new CopyOnWriteArrayList<>();
+
+    private ConfigurableListableBeanFactory beanFactory;
+
+    private ApplicationContext applicationContext;
+
+    /**
+     * @param copy 是否拷贝参数和返回值, 与远程调用一样调用方和实现方互不影响
+     */
+    public VenusLocalClientPostProcessor(boolean copy) {
+        this.copy = copy;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (VenusLocalTargeter.isTargeter(bean)) {
+            VenusLocalTargeter targeter = new VenusLocalTargeter(bean, beanFactory);
+            targeters.add(targeter);
+            return targeter;
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        // 忽略 FeignContext 子容器的事件
+        if (event.getApplicationContext() != applicationContext) {
+            return;
+        }
+        VenusLocalInvoker invoker = new VenusLocalInvoker(copy ? beanFactory.getBean(ObjectMapper.class) : null,
+                validator());
+        for (VenusLocalTargeter targeter : targeters) {
+            targeter.setInvoker(invoker);
+        }
+    }
+
+    private Validator validator() {
+        try {
+            return beanFactory.getBean(Validator.class);
+        } catch (NoSuchBeanDefinitionException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package cn.springcloud.feign;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import feign.Feign;
+import feign.FeignException;
+import feign.Response;
+import feign.Util;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.time.temporal.TemporalAccessor;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 在进程内直接调用 feign 接口的本地实现, 参数和返回值可选用 jackson 的 TokenBuffer 深拷贝(不经过字节序列化),
+ * 参数校验与 provider 端接口注解的 argument resolver 一致: 实现方法或接口方法参数上的 @Valid/@Validated,
+ * 校验失败抛出与远程调用相同的 400 {@link FeignException}.
+ */
+public class VenusLocalInvoker {
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final ConcurrentMap<Method, Plan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * @param objectMapper 为 null 时不拷贝参数和返回值
+     * @param validator    为 null 时不校验参数
+     */
+    public VenusLocalInvoker(ObjectMapper objectMapper, Validator validator) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    /**
+     * 参数或返回值是流、文件、原始响应等只能通过 http 传递的类型, 或返回 Mono/Flux 时, 仍然远程调用
+     */
+    public boolean supports(Method method) {
+        if (method.getReturnType() == Response.class || isStream(method.getReturnType())
+                || VenusStreamingResponse.isElementStream(method) || VenusAsyncInvoker.isReactive(method.getReturnType())) {
+            return false;
+        }
+        for (Class<?> type : method.getParameterTypes()) {
+            if (type == URI.class || isStream(type) || RequestEntity.class.isAssignableFrom(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Object invoke(Object bean, Method method, Object[] args) throws Throwable {
+        Plan plan = plans.get(method);
+        if (plan == null) {
+            plan = plans.computeIfAbsent(method, key -> new Plan(bean, key));
+        }
+        Object[] actual = args;
+        if (args != null && objectMapper != null) {
+            actual = new Object[args.length];
+            for (int i = 0; i < args.length; i++) {
+                actual[i] = copy(args[i], plan.parameterTypes[i]);
+            }
+        }
+        if (args != null && validator != null) {
+            validate(plan, actual);
+        }
+        Object result;
+        try {
+            result = method.invoke(bean, actual);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        return objectMapper == null ? result : copyResult(result, plan.returnType);
+    }
+
+    private void validate(Plan plan, Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            Class<?>[] groups = plan.validationGroups[i];
+            if (groups == null || args[i] == null) {
+                continue;
+            }
+            Set<ConstraintViolation<Object>> violations = validator.validate(args[i], groups);
+            if (!violations.isEmpty()) {
+                StringBuilder message = new StringBuilder("Validation failed for argument [").append(i).append("]: ");
+                for (ConstraintViolation<Object> violation : violations) {
+                    message.append('[').append(violation.getPropertyPath()).append(' ')
+                            .append(violation.getMessage()).append(']');
+                }
+                Response response = Response.builder().status(400).reason("Bad Request")
+                        .headers(Collections.emptyMap()).body(message.toString(), Util.UTF_8).build();
+                throw FeignException.errorStatus(plan.configKey, response);
+            }
+        }
+    }
+
+    private Object copyResult(Object result, JavaType type) throws IOException {
+        if (result instanceof CompletableFuture) {
+            JavaType valueType = type == null ? null : type.containedType(0);
+            return ((CompletableFuture<?>) result).thenApply(value -> {
+                try {
+                    return copy(value, valueType);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        if (!(result instanceof HttpEntity)) {
+            return copy(result, type);
+        }
+        // 只拷贝 body, 状态和 header 不可变
+        HttpEntity<?> entity = (HttpEntity<?>) result;
+        Object body = copy(entity.getBody(), type == null ? null : type.containedType(0));
+        if (entity instanceof ResponseEntity) {
+            return new ResponseEntity<>(body, entity.getHeaders(), ((ResponseEntity<?>) entity).getStatusCode());
+        }
+        return new HttpEntity<>(body, entity.getHeaders());
+    }
+
+    private Object copy(Object value, JavaType type) throws IOException {
+        if (value == null || type == null || isImmutable(value.getClass())) {
+            return value;
+        }
+        // 与远程调用一致, 按实际类型序列化, 按声明类型反序列化
+        TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+        objectMapper.writeValue(buffer, value);
+        return objectMapper.readerFor(type).readValue(buffer.asParser());
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || type == String.class || type == Boolean.class
+                || type == Character.class || Number.class.isAssignableFrom(type) && type.getName().startsWith("java.lang.")
+                || TemporalAccessor.class.isAssignableFrom(type) && type.getName().startsWith("java.time.");
+    }
+
+    private static boolean isStream(Class<?> type) {
+        return InputStream.class.isAssignableFrom(type) || Reader.class.isAssignableFrom(type)
+                || InputStreamSource.class.isAssignableFrom(type);
+    }
+
+    private class Plan {
+        private final String configKey;
+        private final JavaType[] parameterTypes;
+        private final JavaType returnType;
+        /**
+         * 每个参数的校验分组, null 表示不校验
+         */
+        private final Class<?>[][] validationGroups;
+
+        Plan(Object bean, Method method) {
+            configKey = Feign.configKey(method.getDeclaringClass(), method);
+            Type[] types = method.getGenericParameterTypes();
+            parameterTypes = new JavaType[types.length];
+            validationGroups = new Class<?>[types.length][];
+            Method implementation = AopUtils.getMostSpecificMethod(method, AopUtils.getTargetClass(bean));
+            for (int i = 0; i < types.length; i++) {
+                if (objectMapper != null) {
+                    parameterTypes[i] = objectMapper.getTypeFactory().constructType(types[i]);
+                }
+                MethodParameter parameter = new MethodParameter(implementation, i);
+                Validated validated = VenusInterfaceParameterIndex.resolve(parameter, Validated.class)
+                        .getParameterAnnotation(Validated.class);
+                if (validated != null) {
+                    validationGroups[i] = validated.value();
+                } else if (VenusInterfaceParameterIndex.resolve(parameter, Valid.class).hasParameterAnnotation(Valid.class)
+                        && !BeanUtils.isSimpleProperty(method.getParameterTypes()[i])) {
+                    validationGroups[i] = new Class<?>[0];
+                }
+            }
+            returnType = objectMapper == null || method.getReturnType() == void.class ? null
+                    : objectMapper.getTypeFactory().constructType(method.getGenericReturnType());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package cn.springcloud.feign;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.stream.BaseStream;
+
+/**
+ * provider 端把 Stream、Iterator、Iterable 类型的返回值逐个元素写成 NDJSON(每行一个 json), 写出后关闭 Stream;
+ * consumer 在 Accept 中优先 application/x-ndjson 时使用, 其余请求仍返回 json 数组. 只写不读, 只加入 spring mvc 的 converter 列表末尾.
+ */
+public class VenusNdjsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+
+    public VenusNdjsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(VenusStreamingResponse.NDJSON);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BaseStream.class.isAssignableFrom(clazz) || Iterator.class.isAssignableFrom(clazz)
+                || Iterable.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        // 排在 json 之后, Accept 为 */* 时仍返回 json
+        return mediaType == null || VenusStreamingResponse.NDJSON.isCompatibleWith(mediaType) && !mediaType.isWildcardType();
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Iterator<?> elements = value instanceof BaseStream ? ((BaseStream<?, ?>) value).iterator()
+                : value instanceof Iterator ? (Iterator<?>) value : ((Iterable<?>) value).iterator();
+        // 不在每个元素后 flush, 由输出缓冲区分块写出
+        try (SequenceWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(StreamUtils.nonClosing(outputMessage.getBody()))) {
+            while (elements.hasNext()) {
+                writer.write(elements.next());
+            }
+        } finally {
+            if (value instanceof BaseStream) {
+                ((BaseStream<?, ?>) value).close();
+            }
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("NDJSON is write only");
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("NDJSON is write only");
+    }
+}
@@ -0,0 +1,143 @@
+package cn.springcloud.feign;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 加载 venus-cloud-feign-processor 编译期生成的接口解析结果, 按接口缓存.
+ * 没有生成结果的接口或方法返回 null, 由 {@link VenusSpringMvcContract} 走反射解析.
+ */
+class VenusPrecompiledContract {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VenusPrecompiledContract.class);
+
+    static final String LOCATION = "META-INF/venus/contract/";
+
+    private static final String VERSION = "1";
+
+    private final ConcurrentMap<Class<?>, Map<String, MethodDescriptor>> descriptors = new ConcurrentHashMap<>();
+
+    MethodDescriptor find(Class<?> targetType, String configKey) {
+        Map<String, MethodDescriptor> methods = descriptors.get(targetType);
+        if (methods == null) {
+            methods = load(targetType);
+            Map<String, MethodDescriptor> existing = descriptors.putIfAbsent(targetType, methods);
+            if (existing != null) {
+                methods = existing;
+            }
+        }
+        return methods.get(configKey);
+    }
+
+    private Map<String, MethodDescriptor> load(Class<?> targetType) {
+        ClassLoader classLoader = targetType.getClassLoader();
+        String name = LOCATION + targetType.getName() + ".properties";
+        if (classLoader == null) {
+            return Collections.emptyMap();
+        }
+        Properties properties = new Properties();
+        try (InputStream in = classLoader.getResourceAsStream(name)) {
+            if (in == null) {
+                return Collections.emptyMap();
+            }
+            properties.load(in);
+        } catch (IOException e) {
+            LOGGER.warn("could not load {}", name, e);
+            return Collections.emptyMap();
+        }
+        if (!VERSION.equals(properties.getProperty("version"))) {
+            LOGGER.warn("ignore {}, version {} is not supported", name, properties.getProperty("version"));
+            return Collections.emptyMap();
+        }
+        Map<String, MethodDescriptor> methods = new HashMap<>();
+        try {
+            int count = Integer.parseInt(properties.getProperty("methods"));
+            for (int i = 0; i < count; i++) {
+                MethodDescriptor descriptor = new MethodDescriptor(properties, i + ".");
+                methods.put(descriptor.configKey, descriptor);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("ignore malformed {}", name, e);
+            return Collections.emptyMap();
+        }
+        return methods;
+    }
+
+    /**
+     * 单个方法的解析结果, 字段与 MethodMetadata 一一对应
+     */
+    static class MethodDescriptor {
+        final String configKey;
+        final String method;
+        final String rawUrl;
+        final String url;
+        final Map<String, List<String>> headers;
+        final Map<String, List<String>> queries;
+        final Map<Integer, List<String>> indexToName = new LinkedHashMap<>();
+        final List<String> formParams;
+        final int[] httpParams;
+        final Integer urlIndex;
+        final Integer bodyIndex;
+        final Integer headerMapIndex;
+        final Integer queryMapIndex;
+
+        MethodDescriptor(Properties properties, String prefix) {
+            this.configKey = required(properties, prefix + "configKey");
+            this.method = required(properties, prefix + "method");
+            this.rawUrl = required(properties, prefix + "rawUrl");
+            this.url = required(properties, prefix + "url");
+            this.headers = multiMap(properties, prefix + "header");
+            this.queries = multiMap(properties, prefix + "query");
+            for (Map.Entry<String, List<String>> entry : multiMap(properties, prefix + "indexToName").entrySet()) {
+                indexToName.put(Integer.valueOf(entry.getKey()), entry.getValue());
+            }
+            this.formParams = list(properties, prefix + "formParam");
+            String httpParams = required(properties, prefix + "httpParams");
+            String[] indexes = httpParams.isEmpty() ? new String[0] : httpParams.split(",");
+            this.httpParams = new int[indexes.length];
+            for (int i = 0; i < indexes.length; i++) {
+                this.httpParams[i] = Integer.parseInt(indexes[i]);
+            }
+            this.urlIndex = index(properties, prefix + "urlIndex");
+            this.bodyIndex = index(properties, prefix + "bodyIndex");
+            this.headerMapIndex = index(properties, prefix + "headerMapIndex");
+            this.queryMapIndex = index(properties, prefix + "queryMapIndex");
+        }
+
+        private static Map<String, List<String>> multiMap(Properties properties, String prefix) {
+            int count = Integer.parseInt(required(properties, prefix + ".count"));
+            Map<String, List<String>> map = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                map.put(required(properties, prefix + "." + i + ".name"), list(properties, prefix + "." + i + ".value"));
+            }
+            return map;
+        }
+
+        private static List<String> list(Properties properties, String prefix) {
+            int count = Integer.parseInt(required(properties, prefix + ".count"));
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(required(properties, prefix + "." + i));
+            }
+            return values;
+        }
+
+        private static Integer index(Properties properties, String key) {
+            String value = properties.getProperty(key);
+            return value == null ? null : Integer.valueOf(value);
+        }
+
+        private static String required(Properties properties, String key) {
+            String value = properties.getProperty(key);
+            if (value == null) {
+                throw new IllegalArgumentException("missing " + key);
+            }
+            return value;
+        }
+    }
+}
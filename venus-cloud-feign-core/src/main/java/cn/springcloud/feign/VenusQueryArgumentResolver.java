@@ -0,0 +1,125 @@
+package cn.springcloud.feign;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.validation.BindException;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.method.annotation.ModelFactory;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ServletModelAttributeMethodProcessor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * 绑定 @FeignClient 接口中 GET 方法的 POJO 参数, 使用 {@link VenusQueryBinder} 代替 WebDataBinder 的反射绑定.
+ * 非 GET 请求仍交给 Spring MVC 默认的 ModelAttribute 处理.
+ */
+public class VenusQueryArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final VenusQueryBinder binder;
+
+    private final VenusInterfaceParameterIndex interfaceParameterIndex;
+
+    private final HandlerMethodArgumentResolver fallback = new ServletModelAttributeMethodProcessor(true);
+
+    public VenusQueryArgumentResolver(VenusQueryBinder binder, VenusInterfaceParameterIndex interfaceParameterIndex) {
+        this.binder = binder;
+        this.interfaceParameterIndex = interfaceParameterIndex;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        if (parameter.getMethod() == null || !isPlain(parameter.getParameterAnnotations())
+                || BeanUtils.isSimpleProperty(type) || type.isInterface() || type.isEnum()
+                || type.getName().startsWith("java.") || type.getName().startsWith("javax.")
+                || type.getName().startsWith("org.springframework.")) {
+            return false;
+        }
+        // 只处理 feign 接口中未加注解的 POJO 参数, 即 consumer 展开成 query 的参数
+        for (Method method : VenusInterfaceParameterIndex.interfaceMethods(parameter.getMethod())) {
+            if (AnnotatedElementUtils.hasAnnotation(method.getDeclaringClass(), FeignClient.class)
+                    && isPlain(new MethodParameter(method, parameter.getParameterIndex()).getParameterAnnotations())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        if (request == null || !HttpMethod.GET.matches(request.getMethod())) {
+            return fallback.resolveArgument(parameter, mavContainer, webRequest, binderFactory);
+        }
+
+        Map<String, String[]> parameters = request.getParameterMap();
+        Object value;
+        try {
+            value = binder.bind(parameter.getGenericParameterType(), parameters);
+        } catch (IOException e) {
+            throw new MethodArgumentTypeMismatchException(parameters, parameter.getParameterType(),
+                    parameter.getParameterName(), parameter, e);
+        }
+
+        if (binderFactory != null) {
+            String name = ModelFactory.getNameForParameter(parameter);
+            WebDataBinder dataBinder = binderFactory.createBinder(webRequest, value, name);
+            validateIfApplicable(dataBinder, parameter);
+            BindingResult bindingResult = dataBinder.getBindingResult();
+            if (bindingResult.hasErrors() && isBindExceptionRequired(parameter)) {
+                throw new BindException(bindingResult);
+            }
+            // 与 ModelAttributeMethodProcessor 一致, 绑定结果放入 model
+            if (mavContainer != null) {
+                Map<String, Object> bindingResultModel = bindingResult.getModel();
+                mavContainer.removeAttributes(bindingResultModel);
+                mavContainer.addAllAttributes(bindingResultModel);
+            }
+        }
+        return value;
+    }
+
+    private void validateIfApplicable(WebDataBinder dataBinder, MethodParameter parameter) {
+        Validated validated = parameter.getParameterAnnotation(Validated.class);
+        if (validated != null) {
+            dataBinder.validate((Object[]) validated.value());
+        } else if (interfaceParameterIndex.get(parameter, Valid.class).hasParameterAnnotation(Valid.class)) {
+            dataBinder.validate();
+        }
+    }
+
+    private static boolean isBindExceptionRequired(MethodParameter parameter) {
+        int i = parameter.getParameterIndex();
+        Class<?>[] paramTypes = parameter.getExecutable().getParameterTypes();
+        return !(paramTypes.length > i + 1 && Errors.class.isAssignableFrom(paramTypes[i + 1]));
+    }
+
+    /**
+     * 除校验注解外没有其他注解
+     */
+    private static boolean isPlain(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (!(annotation instanceof Valid) && !(annotation instanceof Validated)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,172 @@
+package cn.springcloud.feign;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 把 consumer 展开的 query(a.b.c=v, 集合为重复的 key)还原成 POJO, 与 {@link VenusRequestInterceptor} 的格式对称.
+ * 每个类型按 jackson 的反序列化配置预先生成 path 到属性的绑定计划, 请求时只按计划拼出 json 树交给 jackson 转换,
+ * 日期、枚举、数字、集合的转换规则与 consumer 序列化时一致.
+ */
+public class VenusQueryBinder {
+
+    /**
+     * 嵌套对象的最大展开层数
+     */
+    private static final int MAX_DEPTH = 8;
+
+    /**
+     * 递归类型在同一条 path 上最多出现的次数
+     */
+    private static final int MAX_RECURSION = 2;
+
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentMap<JavaType, Plan> plans = new ConcurrentHashMap<>();
+
+    private boolean compactArrays;
+
+    public VenusQueryBinder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 集合属性只有一个值时按逗号拆分, 与 consumer 的 compact-query-arrays 和 Spring 字符串转集合的规则一致
+     */
+    public void setCompactArrays(boolean compactArrays) {
+        this.compactArrays = compactArrays;
+    }
+
+    public Object bind(Type type, Map<String, String[]> parameters) throws IOException {
+        JavaType javaType = objectMapper.getTypeFactory().constructType(type);
+        Plan plan = plans.get(javaType);
+        if (plan == null) {
+            plan = new Plan();
+            build(plan, javaType, "", new String[0], new HashMap<Class<?>, Integer>());
+            Plan existing = plans.putIfAbsent(javaType, plan);
+            if (existing != null) {
+                plan = existing;
+            }
+        }
+        ObjectNode root = objectMapper.getNodeFactory().objectNode();
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            String name = parameter.getKey();
+            Leaf leaf = plan.leaves.get(name);
+            String field = null;
+            if (leaf == null) {
+                // Map 属性, 最长的前缀之后的部分为 key
+                for (int index = name.lastIndexOf('.'); leaf == null && index > 0; index = name.lastIndexOf('.', index - 1)) {
+                    leaf = plan.maps.get(name.substring(0, index));
+                }
+                field = leaf == null ? null : name.substring(leaf.key.length() + 1);
+            }
+            if (leaf != null) {
+                put(leaf, field, root, parameter.getValue());
+            }
+        }
+        return objectMapper.readerFor(javaType).readValue(root);
+    }
+
+    private void put(Leaf leaf, String mapKey, ObjectNode root, String[] values) {
+        ObjectNode parent = root;
+        for (String segment : leaf.path) {
+            JsonNode child = parent.get(segment);
+            parent = child instanceof ObjectNode ? (ObjectNode) child : parent.putObject(segment);
+        }
+        if (mapKey != null) {
+            JsonNode child = parent.get(leaf.name);
+            parent = child instanceof ObjectNode ? (ObjectNode) child : parent.putObject(leaf.name);
+        }
+        String name = mapKey == null ? leaf.name : mapKey;
+        if (leaf.multiple) {
+            if (compactArrays && values.length == 1) {
+                values = StringUtils.commaDelimitedListToStringArray(values[0]);
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = values[i].trim();
+                }
+            }
+            ArrayNode array = parent.putArray(name);
+            for (String value : values) {
+                array.add(value);
+            }
+        } else if (!(parent.get(name) instanceof ObjectNode) && values.length > 0) {
+            // 同时有 a 和 a.b 时以展开的 a.b 为准
+            parent.put(name, values[0]);
+        }
+    }
+
+    private void build(Plan plan, JavaType type, String prefix, String[] path, Map<Class<?>, Integer> visiting) {
+        DeserializationConfig config = objectMapper.getDeserializationConfig();
+        BeanDescription description = config.introspect(type);
+        visiting.merge(type.getRawClass(), 1, Integer::sum);
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (!property.couldDeserialize()) {
+                continue;
+            }
+            JavaType propertyType = property.getPrimaryType();
+            String key = prefix.isEmpty() ? property.getName() : prefix + "." + property.getName();
+            if (propertyType.isMapLikeType()) {
+                if (propertyType.getKeyType().getRawClass() == String.class) {
+                    plan.maps.put(key, new Leaf(key, path, property.getName(), isMultiple(propertyType.getContentType())));
+                }
+            } else if (isMultiple(propertyType)) {
+                // 集合元素为对象时 consumer 展开后无法对齐, 不绑定
+                if (!isBean(propertyType.getContentType())) {
+                    plan.leaves.put(key, new Leaf(key, path, property.getName(), true));
+                }
+            } else {
+                plan.leaves.put(key, new Leaf(key, path, property.getName(), false));
+                if (isBean(propertyType) && path.length < MAX_DEPTH
+                        && visiting.getOrDefault(propertyType.getRawClass(), 0) < MAX_RECURSION) {
+                    String[] childPath = Arrays.copyOf(path, path.length + 1);
+                    childPath[path.length] = property.getName();
+                    build(plan, propertyType, key, childPath, visiting);
+                }
+            }
+        }
+        visiting.merge(type.getRawClass(), -1, Integer::sum);
+    }
+
+    private static boolean isMultiple(JavaType type) {
+        return type.isCollectionLikeType() || (type.isArrayType() && type.getRawClass() != byte[].class
+                && type.getRawClass() != char[].class);
+    }
+
+    private static boolean isBean(JavaType type) {
+        Class<?> raw = type.getRawClass();
+        return !raw.isPrimitive() && !raw.isEnum() && !raw.isArray() && !type.isContainerType()
+                && !raw.getName().startsWith("java.") && !raw.getName().startsWith("javax.");
+    }
+
+    private static class Plan {
+        private final Map<String, Leaf> leaves = new HashMap<>();
+        private final Map<String, Leaf> maps = new HashMap<>();
+    }
+
+    private static class Leaf {
+        private final String key;
+        private final String[] path;
+        private final String name;
+        private final boolean multiple;
+
+        Leaf(String key, String[] path, String name, boolean multiple) {
+            this.key = key;
+            this.path = path;
+            this.name = name;
+            this.multiple = multiple;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package cn.springcloud.feign;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import com.fasterxml.jackson.databind.ser.ContainerSerializer;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.ArraySerializerBase;
+import com.fasterxml.jackson.databind.ser.std.MapSerializer;
+import com.fasterxml.jackson.databind.ser.std.StaticListSerializerBase;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import feign.RequestTemplate;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.net.URLEncoder;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * GET 方法的 POJO 参数直接展开为 query, 不再经过 json body 序列化和 {@link VenusRequestInterceptor} 的反解析.
+ * 每个类型按 jackson 的序列化配置编译一次访问计划并缓存, 生成的 key 与 {@link VenusRequestInterceptor} 一致;
+ * jackson 定制过序列化方式的类型(自定义序列化器、@JsonFormat 等)退回到 TokenBuffer 流式展开.
+ */
+public class VenusQueryEncoder implements Encoder {
+
+    private static final Set<Class<?>> SCALAR_TYPES = new HashSet<>(Arrays.asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class,
+            Integer.class, Long.class, Float.class, Double.class));
+
+    private final Encoder delegate;
+
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentMap<Class<?>, QueryWriter> writers = new ConcurrentHashMap<>();
+
+    private VenusFeignMetrics metrics;
+
+    private boolean compactArrays;
+
+    public VenusQueryEncoder(Encoder delegate, ObjectMapper objectMapper) {
+        this.delegate = delegate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void setMetrics(VenusFeignMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 集合的多个值合并为逗号分隔的一个值, 与 {@link VenusRequestInterceptor#setCompactArrays(boolean)} 一致
+     */
+    public void setCompactArrays(boolean compactArrays) {
+        this.compactArrays = compactArrays;
+    }
+
+    @Override
+    public void encode(Object object, Type bodyType, RequestTemplate template) throws EncodeException {
+        if (!HttpMethod.GET.matches(template.method())
+                || objectMapper.isEnabled(SerializationFeature.WRAP_ROOT_VALUE)) {
+            delegate.encode(object, bodyType, template);
+            return;
+        }
+        long start = System.nanoTime();
+        // 只有对象才能展开成 key=value, 其余类型保持原有 json body 的处理方式
+        QueryWriter writer = writerFor(object.getClass());
+        if (writer instanceof ScalarWriter || writer instanceof IterableWriter || writer instanceof ArrayWriter) {
+            delegate.encode(object, bodyType, template);
+            return;
+        }
+        Map<String, Collection<String>> queries = new LinkedHashMap<>();
+        try {
+            if (writer instanceof TreeWriter) {
+                TokenBuffer buffer = toTokens(object);
+                if (buffer.firstToken() != JsonToken.START_OBJECT) {
+                    delegate.encode(object, bodyType, template);
+                    return;
+                }
+                VenusRequestInterceptor.buildQuery(buffer.asParser(), "", objectMapper, queries);
+            } else {
+                writer.write(object, "", queries);
+            }
+        } catch (Exception e) {
+            if (metrics != null) {
+                metrics.recordFailure(VenusRequestInterceptor.configKey(template), e);
+            }
+            throw new EncodeException("Could not encode " + object.getClass().getName() + " as query", e);
+        }
+        if (compactArrays) {
+            VenusRequestInterceptor.compactArrays(queries);
+        }
+        for (Map.Entry<String, Collection<String>> entry : queries.entrySet()) {
+            List<String> values = new ArrayList<>(entry.getValue().size());
+            for (String value : entry.getValue()) {
+                values.add(urlEncode(value));
+            }
+            // 已编码, 避免以 { 开头的值被 RequestTemplate 当成模板变量解析
+            template.query(true, urlEncode(entry.getKey()), values);
+        }
+        if (metrics != null) {
+            metrics.recordQuery(VenusRequestInterceptor.configKey(template), System.nanoTime() - start, template, queries);
+        }
+    }
+
+    private QueryWriter writerFor(Class<?> type) {
+        QueryWriter writer = writers.get(type);
+        if (writer == null) {
+            writer = createWriter(type);
+            QueryWriter existing = writers.putIfAbsent(type, writer);
+            if (existing != null) {
+                writer = existing;
+            }
+        }
+        return writer;
+    }
+
+    private QueryWriter createWriter(Class<?> type) {
+        if (SCALAR_TYPES.contains(type)) {
+            return new ScalarWriter();
+        }
+        JsonSerializer<?> serializer;
+        try {
+            serializer = objectMapper.getSerializerProviderInstance().findTypedValueSerializer(type, true, null);
+        } catch (JsonMappingException e) {
+            return new TreeWriter();
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            if (serializer instanceof ContainerSerializer || serializer instanceof StaticListSerializerBase) {
+                return new IterableWriter();
+            }
+        } else if (type.isArray()) {
+            // byte[] char[] 会被序列化成字符串, 不是 ArraySerializerBase
+            if (serializer instanceof ArraySerializerBase) {
+                return new ArrayWriter();
+            }
+        } else if (Map.class.isAssignableFrom(type)) {
+            if (serializer instanceof MapSerializer) {
+                return new MapWriter();
+            }
+        } else if (serializer.getClass() == BeanSerializer.class) {
+            BeanWriter beanWriter = createBeanWriter(type, (BeanSerializer) serializer);
+            if (beanWriter != null) {
+                return beanWriter;
+            }
+        }
+        return new TreeWriter();
+    }
+
+    /**
+     * 只编译 jackson 默认行为的 bean, 任何改变序列化结果的定制都返回 null
+     */
+    private BeanWriter createBeanWriter(Class<?> type, BeanSerializer serializer) {
+        SerializationConfig config = objectMapper.getSerializationConfig();
+        if (serializer.usesObjectId() || config.getActiveView() != null || !isPlainInclusion(config, type)) {
+            return null;
+        }
+        BeanDescription description = config.introspect(config.constructType(type));
+        if (description.findAnyGetter() != null
+                || config.getAnnotationIntrospector().findFilterId(description.getClassInfo()) != null) {
+            return null;
+        }
+        List<BeanPropertyWriter> properties = new ArrayList<>();
+        Iterator<PropertyWriter> it = serializer.properties();
+        while (it.hasNext()) {
+            PropertyWriter propertyWriter = it.next();
+            if (propertyWriter.getClass() != BeanPropertyWriter.class) {
+                return null;
+            }
+            BeanPropertyWriter property = (BeanPropertyWriter) propertyWriter;
+            if (property.getTypeSerializer() != null
+                    || property.hasNullSerializer()
+                    || property.getAnnotation(JsonSerialize.class) != null
+                    || property.getAnnotation(JsonFormat.class) != null
+                    || property.getAnnotation(JsonInclude.class) != null
+                    || property.getAnnotation(JsonRawValue.class) != null
+                    || property.getAnnotation(JsonTypeInfo.class) != null
+                    || !isPlainInclusion(config, property.getType().getRawClass())) {
+                return null;
+            }
+            properties.add(property);
+        }
+        return new BeanWriter(properties.toArray(new BeanPropertyWriter[0]));
+    }
+
+    private static boolean isPlainInclusion(SerializationConfig config, Class<?> type) {
+        JsonInclude.Include inclusion = config.getDefaultPropertyInclusion(type).getValueInclusion();
+        // null 值本来就会被跳过, 其余策略(NON_EMPTY等)会改变输出
+        return inclusion == JsonInclude.Include.ALWAYS
+                || inclusion == JsonInclude.Include.NON_NULL
+                || inclusion == JsonInclude.Include.USE_DEFAULTS;
+    }
+
+    private void writeValue(Object value, String path, Map<String, Collection<String>> queries) throws Exception {
+        if (value == null) {
+            return;
+        }
+        writerFor(value.getClass()).write(value, path, queries);
+    }
+
+    private TokenBuffer toTokens(Object value) throws IOException {
+        TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+        objectMapper.writeValue(buffer, value);
+        return buffer;
+    }
+
+    private static String childPath(String path, String name) {
+        return path.isEmpty() ? name : path + "." + name;
+    }
+
+    private static void addValue(String path, String value, Map<String, Collection<String>> queries) {
+        Collection<String> values = queries.get(path);
+        if (null == values) {
+            values = new ArrayList<>();
+            queries.put(path, values);
+        }
+        values.add(value);
+    }
+
+    private static String urlEncode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface QueryWriter {
+        void write(Object value, String path, Map<String, Collection<String>> queries) throws Exception;
+    }
+
+    private static class ScalarWriter implements QueryWriter {
+        @Override
+        public void write(Object value, String path, Map<String, Collection<String>> queries) {
+            addValue(path, String.valueOf(value), queries);
+        }
+    }
+
+    private class IterableWriter implements QueryWriter {
+        @Override
+        public void write(Object value, String path, Map<String, Collection<String>> queries) throws Exception {
+            for (Object element : (Iterable<?>) value) {
+                writeValue(element, path, queries);
+            }
+        }
+    }
+
+    private class ArrayWriter implements QueryWriter {
+        @Override
+        public void write(Object value, String path, Map<String, Collection<String>> queries) throws Exception {
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                writeValue(Array.get(value, i), path, queries);
+            }
+        }
+    }
+
+    private class MapWriter implements QueryWriter {
+        @Override
+        public void write(Object value, String path, Map<String, Collection<String>> queries) throws Exception {
+            Map<?, ?> map = (Map<?, ?>) value;
+            for (Object key : map.keySet()) {
+                if (!(key instanceof String)) {
+                    // 非字符串 key 交给 jackson 的 key 序列化器
+                    VenusRequestInterceptor.buildQuery(toTokens(value).asParser(), path, objectMapper, queries);
+                    return;
+                }
+            }
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getValue(), childPath(path, (String) entry.getKey()), queries);
+            }
+        }
+    }
+
+    private class BeanWriter implements QueryWriter {
+        private final BeanPropertyWriter[] properties;
+
+        BeanWriter(BeanPropertyWriter[] properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public void write(Object value, String path, Map<String, Collection<String>> queries) throws Exception {
+            for (BeanPropertyWriter property : properties) {
+                writeValue(property.get(value), childPath(path, property.getName()), queries);
+            }
+        }
+    }
+
+    private class TreeWriter implements QueryWriter {
+        @Override
+        public void write(Object value, String path, Map<String, Collection<String>> queries) throws IOException {
+            VenusRequestInterceptor.buildQuery(toTokens(value).asParser(), path, objectMapper, queries);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package cn.springcloud.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * consumer 端 query 超过 maxLength 的 GET 请求改为 POST 发送, query 原样作为 application/x-www-form-urlencoded 请求体,
+ * 并带上 {@code X-HTTP-Method-Override: GET}, 由 provider 的 {@link VenusQueryOverflowFilter} 还原为 GET 和 query 参数,
+ * 避免超长的 url 被网关或代理拒绝.
+ * 普通的 Spring MVC 忽略该请求头, 同一路径上映射了 POST 时会执行 POST 方法, 所以只有服务的响应带上 {@link #SUPPORTED_HEADER}
+ * 之后才转换, 之前和响应不再带上时仍按 GET 发送. provider 返回 405 时按原 GET 请求重发一次.
+ */
+public class VenusQueryOverflow implements VenusClientDecorator {
+
+    static final String METHOD_OVERRIDE_HEADER = "X-HTTP-Method-Override";
+
+    /**
+     * {@link VenusQueryOverflowFilter} 在所有响应中写入, consumer 收到后才向该服务发送转换后的请求
+     */
+    static final String SUPPORTED_HEADER = "Venus-Query-Overflow";
+
+    private static final String CONTENT_TYPE = "Content-Type";
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private final int maxLength;
+
+    /**
+     * 声明支持转换的服务(url 的 scheme + authority, 负载均衡前为服务名)
+     */
+    private final Set<String> supported = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param maxLength 编码后的 query 超过该长度时改为请求体发送
+     */
+    public VenusQueryOverflow(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public int getOrder() {
+        // 在缓存和合并之后, 它们仍按 GET 的 url 处理; 在压缩之前, 请求体可以被压缩
+        return 350;
+    }
+
+    @Override
+    public Client decorate(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        String url = request.url();
+        String peer = peer(url);
+        int index = url.indexOf('?');
+        if (!"GET".equals(request.method()) || request.body() != null || index < 0
+                || url.length() - index - 1 <= maxLength || !supported.contains(peer)) {
+            return learn(peer, client.execute(request, options));
+        }
+        // query 已经按 url 编码, 与表单的编码格式相同
+        byte[] body = url.substring(index + 1).getBytes(StandardCharsets.US_ASCII);
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(request.headers());
+        headers.keySet().removeIf(name -> CONTENT_TYPE.equalsIgnoreCase(name) || CONTENT_LENGTH.equalsIgnoreCase(name));
+        headers.put(CONTENT_TYPE, Collections.singletonList("application/x-www-form-urlencoded"));
+        headers.put(CONTENT_LENGTH, Collections.singletonList(String.valueOf(body.length)));
+        headers.put(METHOD_OVERRIDE_HEADER, Collections.singletonList("GET"));
+        Response response = client.execute(
+                Request.create("POST", url.substring(0, index), headers, body, StandardCharsets.UTF_8), options);
+        if (response.status() == 405) {
+            supported.remove(peer);
+            Util.ensureClosed(response.body());
+            return learn(peer, client.execute(request, options));
+        }
+        return learn(peer, response);
+    }
+
+    /**
+     * 按响应是否带有 {@link #SUPPORTED_HEADER} 更新服务是否支持转换
+     */
+    private Response learn(String peer, Response response) {
+        boolean declared = false;
+        for (String name : response.headers().keySet()) {
+            declared |= SUPPORTED_HEADER.equalsIgnoreCase(name);
+        }
+        if (declared) {
+            supported.add(peer);
+        } else {
+            supported.remove(peer);
+        }
+        return response;
+    }
+
+    private static String peer(String url) {
+        int start = url.indexOf("://");
+        int end = url.indexOf('/', start < 0 ? 0 : start + 3);
+        int query = url.indexOf('?');
+        if (query >= 0 && (end < 0 || query < end)) {
+            end = query;
+        }
+        return end < 0 ? url : url.substring(0, end);
+    }
+}
@@ -0,0 +1,117 @@
+package cn.springcloud.feign;
+
+import org.springframework.boot.web.servlet.filter.OrderedHiddenHttpMethodFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static cn.springcloud.feign.VenusQueryOverflow.METHOD_OVERRIDE_HEADER;
+import static cn.springcloud.feign.VenusQueryOverflow.SUPPORTED_HEADER;
+
+/**
+ * provider 端把 {@link VenusQueryOverflow} 转换的 POST 请求还原为 GET, 表单请求体与 url 中的 query 合并为请求参数,
+ * 同一个 GET 方法的 POJO、@RequestParam 参数不论 query 放在 url 还是请求体中都按相同方式绑定.
+ * 只接受覆盖为 GET, 请求体按 Content-Encoding 解压. 所有响应都带上 {@link VenusQueryOverflow#SUPPORTED_HEADER},
+ * consumer 收到后才发送转换后的请求.
+ */
+public class VenusQueryOverflowFilter extends OncePerRequestFilter implements Ordered {
+
+    @Override
+    public int getOrder() {
+        // 在 HiddenHttpMethodFilter 读取表单参数之前读取请求体
+        return OrderedHiddenHttpMethodFilter.DEFAULT_ORDER - 1;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        response.setHeader(SUPPORTED_HEADER, "GET");
+        if (!"POST".equals(request.getMethod()) || !"GET".equalsIgnoreCase(request.getHeader(METHOD_OVERRIDE_HEADER))
+                || request.getContentType() == null
+                || !MediaType.APPLICATION_FORM_URLENCODED.includes(MediaType.parseMediaType(request.getContentType()))) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Charset charset = request.getCharacterEncoding() == null ? StandardCharsets.UTF_8
+                : Charset.forName(request.getCharacterEncoding());
+        Map<String, List<String>> parameters = new LinkedHashMap<>();
+        parse(request.getQueryString(), charset, parameters);
+        InputStream in = request.getInputStream();
+        VenusContentEncoding encoding = VenusContentEncoding.of(request.getHeader(VenusContentEncoding.CONTENT_ENCODING));
+        if (encoding != null) {
+            in = encoding.decompress(in);
+        }
+        parse(StreamUtils.copyToString(in, StandardCharsets.US_ASCII), charset, parameters);
+        chain.doFilter(new OverriddenRequest(request, parameters), response);
+    }
+
+    private static void parse(String query, Charset charset, Map<String, List<String>> parameters) throws IOException {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int index = pair.indexOf('=');
+            String name = URLDecoder.decode(index < 0 ? pair : pair.substring(0, index), charset.name());
+            String value = index < 0 ? "" : URLDecoder.decode(pair.substring(index + 1), charset.name());
+            parameters.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+    }
+
+    private static class OverriddenRequest extends HttpServletRequestWrapper {
+        private final Map<String, String[]> parameters = new LinkedHashMap<>();
+
+        OverriddenRequest(HttpServletRequest request, Map<String, List<String>> parameters) {
+            super(request);
+            for (Map.Entry<String, List<String>> parameter : parameters.entrySet()) {
+                this.parameters.put(parameter.getKey(), parameter.getValue().toArray(new String[0]));
+            }
+        }
+
+        @Override
+        public String getMethod() {
+            return "GET";
+        }
+
+        @Override
+        public String getParameter(String name) {
+            String[] values = parameters.get(name);
+            return values == null ? null : values[0];
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap() {
+            return Collections.unmodifiableMap(parameters);
+        }
+
+        @Override
+        public Enumeration<String> getParameterNames() {
+            return Collections.enumeration(parameters.keySet());
+        }
+
+        @Override
+        public String[] getParameterValues(String name) {
+            return parameters.get(name);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package cn.springcloud.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 合并 {@link VenusSingleFlight} 方法同时发出的相同 GET 请求(key 与响应缓存相同, 见 {@link VenusResponseCache#key(Request, List)}):
+ * 第一个请求实际发出, 其余请求等待并共享它的响应(每个调用方各自解码), 响应 Vary 中的请求头与第一个请求不同时各自重新发出.
+ * 等待时间不超过请求的 connectTimeout + readTimeout, 超时抛出 {@link SocketTimeoutException};
+ * 超过该时间仍未返回的请求不再被合并, 后来的请求重新发出.
+ */
+public class VenusRequestCoalescer implements VenusClientDecorator {
+
+    /**
+     * 解析时写入 {@link VenusSingleFlight} 方法的模板
+     */
+    static final String SINGLE_FLIGHT_HEADER = "Venus-Single-Flight";
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * 每个方法最近一次响应 Vary 中的请求头, 计入 key
+     */
+    private final ConcurrentMap<String, List<String>> vary = new ConcurrentHashMap<>();
+
+    @Override
+    public int getOrder() {
+        // 在响应缓存之内, 只合并未命中缓存的请求
+        return 200;
+    }
+
+    @Override
+    public Client decorate(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        if (!"GET".equals(request.method()) || !request.headers().containsKey(SINGLE_FLIGHT_HEADER)) {
+            return client.execute(request, options);
+        }
+        long timeout = (long) options.connectTimeoutMillis() + options.readTimeoutMillis();
+        String configKey = VenusClientDecorator.configKey(request);
+        String key = VenusResponseCache.key(request, vary.getOrDefault(configKey, Collections.emptyList()));
+        long now = System.nanoTime();
+        Flight flight = new Flight(now + TimeUnit.MILLISECONDS.toNanos(timeout), request.headers());
+        Flight current = flights.putIfAbsent(key, flight);
+        while (current != null && current.deadline - now < 0) {
+            // 已超时的请求不再合并
+            if (flights.replace(key, current, flight)) {
+                current = null;
+            } else {
+                current = flights.putIfAbsent(key, flight);
+            }
+        }
+        if (current == null) {
+            return lead(client, request, options, key, flight, configKey);
+        }
+        Response response = await(current, request, current.deadline - now);
+        if (!VenusResponseCache.varyMatches(response, current.headers, request.headers())) {
+            return client.execute(request, options);
+        }
+        return response.toBuilder().request(request).build();
+    }
+
+    private Response lead(Client client, Request request, Request.Options options, String key, Flight flight,
+                          String configKey) throws IOException {
+        try {
+            Response response = client.execute(request, options);
+            vary.put(configKey, VenusResponseCache.varyNames(response));
+            byte[] body = response.body() == null ? null : Util.toByteArray(response.body().asInputStream());
+            Util.ensureClosed(response.body());
+            Response shared = response.toBuilder().body(body).build();
+            flight.complete(shared);
+            return shared.toBuilder().request(request).build();
+        } catch (IOException | RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private Response await(Flight flight, Request request, long timeoutNanos) throws IOException {
+        try {
+            return flight.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new SocketTimeoutException("single-flight request timed out: " + request.url());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * 正在进行的请求, deadline 为 System.nanoTime(), headers 为实际发出的请求头
+     */
+    private static class Flight extends CompletableFuture<Response> {
+        private final long deadline;
+        private final Map<String, Collection<String>> headers;
+
+        Flight(long deadline, Map<String, Collection<String>> headers) {
+            this.deadline = deadline;
+            this.headers = headers;
+        }
+    }
+}
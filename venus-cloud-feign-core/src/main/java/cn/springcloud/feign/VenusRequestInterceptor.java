@@ -1,14 +1,18 @@
 package cn.springcloud.feign;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpMethod;
-import org.springframework.util.StringUtils;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.*;
 
 /**
@@ -17,57 +21,187 @@ import java.util.*;
  * @author Charles He
  */
 public class VenusRequestInterceptor implements RequestInterceptor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VenusRequestInterceptor.class);
+
+    /**
+     * 开启指标或有 {@link VenusClientDecorator} 时解析写入方法模板的 configKey, 在请求发出前移除
+     */
+    static final String CONFIG_KEY_HEADER = "Venus-Config-Key";
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired(required = false)
+    private VenusFeignMetrics metrics;
+
+    /**
+     * 有 decorator 时 configKey 留给 decorator 读取, 由最内层的 client 移除
+     */
+    @Autowired(required = false)
+    private List<VenusClientDecorator> clientDecorators;
+
+    private boolean compactArrays;
+
+    /**
+     * 集合的多个值合并为逗号分隔的一个值, 不再重复 key
+     */
+    public void setCompactArrays(boolean compactArrays) {
+        this.compactArrays = compactArrays;
+    }
+
     @Override
     public void apply(RequestTemplate template) {
+        String configKey = configKey(template);
+        if (configKey != null && clientDecorators == null) {
+            template.header(CONFIG_KEY_HEADER, (String) null);
+        }
         // feign 不支持 GET 方法传 POJO, json body转query
         if (HttpMethod.GET.matches(template.method()) && template.body() != null) {
-            try {
-                JsonNode jsonNode = objectMapper.readTree(template.body());
+            long start = System.nanoTime();
+            try (JsonParser parser = objectMapper.getFactory().createParser(template.body())) {
+                Map<String, Collection<String>> queries = new HashMap<>();
+                buildQuery(parser, "", objectMapper, queries);
+                if (compactArrays) {
+                    compactArrays(queries);
+                }
                 template.body(null);
-
-                Map<String, Collection<String>> queries = new HashMap<>(jsonNode.size());
-                buildQuery(jsonNode, "", queries);
                 template.queries(queries);
+                if (metrics != null) {
+                    metrics.recordQuery(configKey, System.nanoTime() - start, template, queries);
+                }
             } catch (IOException e) {
-                e.printStackTrace();
+                LOGGER.warn("convert json body of {} to query failed", configKey == null ? template.url() : configKey, e);
+                if (metrics != null) {
+                    metrics.recordFailure(configKey, e);
+                }
             }
         }
     }
 
-    private void buildQuery(JsonNode jsonNode, String path, Map<String, Collection<String>> queries) {
-        // 叶子节点
-        if (!jsonNode.isContainerNode()) {
-            if (jsonNode.isNull()) {
-                return;
-            }
-            Collection<String> values = queries.get(path);
-            if (null == values) {
-                values = new ArrayList<>();
-                queries.put(path, values);
+    static String configKey(RequestTemplate template) {
+        return configKey(template.headers());
+    }
+
+    static String configKey(Map<String, Collection<String>> headers) {
+        Collection<String> values = headers.get(CONFIG_KEY_HEADER);
+        return values == null || values.isEmpty() ? null : values.iterator().next();
+    }
+
+    /**
+     * 流式展开json, 不构建JsonNode树, 所有层级共用一个path缓冲区, 只在叶子节点生成key
+     *
+     * @param path 根节点的path, 顶层为空串
+     */
+    static void buildQuery(JsonParser parser, String path, ObjectMapper objectMapper,
+                           Map<String, Collection<String>> queries) throws IOException {
+        StringBuilder pathBuilder = new StringBuilder(path);
+        // 每一层对象节点在path中的起始长度
+        int[] bases = new int[8];
+        int depth = 0;
+        // path未变化时(数组元素)复用同一个key
+        Collection<String> values = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            switch (token) {
+                case START_OBJECT:
+                    if (depth == bases.length) {
+                        bases = Arrays.copyOf(bases, depth * 2);
+                    }
+                    bases[depth++] = pathBuilder.length();
+                    break;
+                case FIELD_NAME:
+                    int base = bases[depth - 1];
+                    pathBuilder.setLength(base);
+                    // 根节点
+                    if (base > 0) {
+                        pathBuilder.append('.');
+                    }
+                    pathBuilder.append(parser.getCurrentName());
+                    values = null;
+                    break;
+                case END_OBJECT:
+                    pathBuilder.setLength(bases[--depth]);
+                    values = null;
+                    break;
+                // 数组节点, 元素使用同一个path
+                case START_ARRAY:
+                case END_ARRAY:
+                case VALUE_NULL:
+                    break;
+                // 叶子节点
+                default:
+                    if (null == values) {
+                        String key = pathBuilder.toString();
+                        values = queries.get(key);
+                        if (null == values) {
+                            values = new ArrayList<>();
+                            queries.put(key, values);
+                        }
+                    }
+                    values.add(leafText(parser, token, objectMapper));
+                    break;
             }
-            values.add(jsonNode.asText());
-            return;
         }
-        // 数组节点
-        if (jsonNode.isArray()) {
-            Iterator<JsonNode> it = jsonNode.elements();
-            while (it.hasNext()) {
-                buildQuery(it.next(), path, queries);
+    }
+
+    /**
+     * 多个值合并为逗号分隔的一个值, provider 端按 Spring 字符串转集合的规则拆分;
+     * 值中有逗号、首尾空白或为空串时拆分结果不同, 保持重复的 key
+     */
+    static void compactArrays(Map<String, Collection<String>> queries) {
+        for (Map.Entry<String, Collection<String>> entry : queries.entrySet()) {
+            Collection<String> values = entry.getValue();
+            if (values.size() < 2) {
+                continue;
             }
-        } else {
-            Iterator<Map.Entry<String, JsonNode>> it = jsonNode.fields();
-            while (it.hasNext()) {
-                Map.Entry<String, JsonNode> entry = it.next();
-                if (StringUtils.hasText(path)) {
-                    buildQuery(entry.getValue(), path + "." + entry.getKey(), queries);
-                } else {  // 根节点
-                    buildQuery(entry.getValue(), entry.getKey(), queries);
+            StringBuilder joined = new StringBuilder();
+            for (String value : values) {
+                if (value.isEmpty() || value.indexOf(',') >= 0 || !value.equals(value.trim())) {
+                    joined = null;
+                    break;
                 }
+                joined.append(joined.length() == 0 ? "" : ",").append(value);
             }
+            if (joined != null) {
+                entry.setValue(Collections.singletonList(joined.toString()));
+            }
+        }
+    }
+
+    /**
+     * 与JsonNode.asText()的结果保持一致
+     */
+    private static String leafText(JsonParser parser, JsonToken token, ObjectMapper objectMapper) throws IOException {
+        switch (token) {
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return numberText(parser.getText(), objectMapper);
+            case VALUE_TRUE:
+                return "true";
+            case VALUE_FALSE:
+                return "false";
+            case VALUE_EMBEDDED_OBJECT:
+                Object embedded = parser.getEmbeddedObject();
+                if (embedded instanceof byte[]) {
+                    return objectMapper.getSerializationConfig().getBase64Variant().encode((byte[]) embedded);
+                }
+                return String.valueOf(embedded);
+            default:
+                return parser.getText();
+        }
+    }
+
+    /**
+     * 按json文本的解析规则处理数字: 带小数点或指数的读成double, 其余为整数
+     */
+    private static String numberText(String text, ObjectMapper objectMapper) {
+        if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+            // json 整数不允许前导0
+            return "-0".equals(text) ? "0" : text;
+        }
+        if (objectMapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)) {
+            return objectMapper.getNodeFactory().numberNode(new BigDecimal(text)).asText();
         }
+        return Double.toString(Double.parseDouble(text));
     }
 }
@@ -0,0 +1,326 @@
+package cn.springcloud.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET 请求的进程内响应缓存, 在负载均衡之前命中, key 见 {@link #key(Request, List)}.
+ * 缓存时间取 {@link VenusCacheable}, 其次是 provider 返回的 Cache-Control: max-age 和 Expires, 都没有时不缓存;
+ * 遵守 no-store/no-cache/Vary, 带 Authorization 的请求只缓存 public 响应(包括 {@link VenusCacheable} 的方法).
+ * 按 LRU 淘汰, 超过 maxBodyBytes 的响应不缓存.
+ */
+public class VenusResponseCache implements VenusClientDecorator {
+
+    /**
+     * 解析时写入方法模板的 {@link VenusCacheable} 缓存时间(毫秒)
+     */
+    static final String TTL_HEADER = "Venus-Cache-Ttl";
+
+    /**
+     * 解析时写入方法模板的声明请求头名称, 逗号分隔
+     */
+    static final String KEY_HEADERS = "Venus-Key-Headers";
+
+    /**
+     * 拦截器添加、区分调用方的请求头, 总是计入 key
+     */
+    private static final List<String> CREDENTIAL_HEADERS = Arrays.asList("Authorization", "Cookie");
+
+    private static final Set<Integer> CACHEABLE_STATUS = new HashSet<>(Arrays.asList(200, 203, 204, 300, 301, 404, 410));
+
+    private final int maxBodyBytes;
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * 每个方法最近一次响应 Vary 中的请求头, 计入 key
+     */
+    private final Map<String, List<String>> vary = new ConcurrentHashMap<>();
+
+    private VenusFeignMetrics metrics;
+
+    public VenusResponseCache(int maxEntries, int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public void setMetrics(VenusFeignMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            metrics.registerCacheSize(entries);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return 100;
+    }
+
+    @Override
+    public Client decorate(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        Long override = ttlOverride(request);
+        if (!"GET".equals(request.method()) || override != null && override <= 0) {
+            return client.execute(request, options);
+        }
+        String configKey = VenusClientDecorator.configKey(request);
+        String key = key(request, vary.getOrDefault(configKey, Collections.emptyList()));
+        long start = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.expiresAt - start > 0 && entry.matches(request)) {
+                if (metrics != null) {
+                    metrics.recordCache(configKey, true);
+                }
+                return entry.toResponse(request);
+            }
+            entries.remove(key, entry);
+        }
+        if (metrics != null) {
+            metrics.recordCache(configKey, false);
+        }
+
+        Response response = client.execute(request, options);
+        long ttl = ttl(request, response, override);
+        if (ttl <= 0) {
+            return response;
+        }
+        Response.Body body = response.body();
+        byte[] bytes = null;
+        if (body != null) {
+            if (body.length() != null && body.length() > maxBodyBytes) {
+                return response;
+            }
+            InputStream in = body.asInputStream();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length() == null ? 256 : body.length());
+            byte[] buffer = new byte[4096];
+            int read;
+            while (out.size() <= maxBodyBytes
+                    && (read = in.read(buffer, 0, Math.min(buffer.length, maxBodyBytes + 1 - out.size()))) > 0) {
+                out.write(buffer, 0, read);
+            }
+            if (out.size() > maxBodyBytes) {
+                // 已读取的部分放回去, 不缓存
+                return response.toBuilder()
+                        .body(new SequenceInputStream(new ByteArrayInputStream(out.toByteArray()), in), null).build();
+            }
+            Util.ensureClosed(body);
+            bytes = out.toByteArray();
+        }
+        entry = new Entry(response, bytes, start + TimeUnit.MILLISECONDS.toNanos(ttl), request);
+        List<String> names = varyNames(response);
+        if (!names.equals(vary.put(configKey, names))) {
+            key = key(request, names);
+        }
+        entries.put(key, entry);
+        return entry.toResponse(request);
+    }
+
+    /**
+     * 缓存和合并的 key: configKey + url + 按参数名排序的 query + 方法声明的请求头(@RequestHeader 参数、headers)
+     * 以及 Authorization、Cookie 的值. 拦截器添加的其他请求头(如请求 id、时间戳、签名)每次调用都不同, 不计入 key;
+     * 其中影响响应内容的请求头由 provider 在 Vary 中声明, 该方法最近一次响应的 Vary 请求头(vary)也计入 key
+     */
+    static String key(Request request, List<String> vary) {
+        StringBuilder key = key(VenusClientDecorator.configKey(request), request.url());
+        Set<String> names = new LinkedHashSet<>(CREDENTIAL_HEADERS);
+        for (String declared : header(request.headers(), KEY_HEADERS)) {
+            names.addAll(Arrays.asList(declared.split(",")));
+        }
+        names.addAll(vary);
+        for (String name : names) {
+            Collection<String> values = header(request.headers(), name);
+            if (!values.isEmpty()) {
+                key.append(' ').append(name.toLowerCase(Locale.ROOT)).append('=').append(values);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * query 按参数名稳定排序, 同名参数保持原有顺序
+     */
+    private static StringBuilder key(String configKey, String url) {
+        int index = url.indexOf('?');
+        StringBuilder key = new StringBuilder(url.length() + 64).append(configKey).append(' ');
+        if (index < 0) {
+            return key.append(url);
+        }
+        key.append(url, 0, index + 1);
+        String[] params = url.substring(index + 1).split("&");
+        Arrays.sort(params, Comparator.comparing(VenusResponseCache::paramName));
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) {
+                key.append('&');
+            }
+            key.append(params[i]);
+        }
+        return key;
+    }
+
+    /**
+     * 响应 Vary 中的请求头名称, 小写
+     */
+    static List<String> varyNames(Response response) {
+        return values(response.headers(), "Vary");
+    }
+
+    /**
+     * 响应 Vary 中的请求头在两个请求中相同, 可以共享该响应; Vary: * 时不能共享
+     */
+    static boolean varyMatches(Response response, Map<String, Collection<String>> original,
+                               Map<String, Collection<String>> headers) {
+        for (String name : values(response.headers(), "Vary")) {
+            if ("*".equals(name) || !new ArrayList<>(header(original, name)).equals(new ArrayList<>(header(headers, name)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String paramName(String param) {
+        int index = param.indexOf('=');
+        return index < 0 ? param : param.substring(0, index);
+    }
+
+    private static Long ttlOverride(Request request) {
+        Collection<String> values = request.headers().get(TTL_HEADER);
+        return values == null || values.isEmpty() ? null : Long.valueOf(values.iterator().next());
+    }
+
+    /**
+     * 响应的缓存时间(毫秒), 不可缓存时返回 0
+     */
+    private static long ttl(Request request, Response response, Long override) {
+        if (!CACHEABLE_STATUS.contains(response.status()) || values(response.headers(), "Vary").contains("*")) {
+            return 0;
+        }
+        Map<String, String> cacheControl = new HashMap<>();
+        for (String directive : values(response.headers(), "Cache-Control")) {
+            int index = directive.indexOf('=');
+            cacheControl.put(index < 0 ? directive : directive.substring(0, index),
+                    index < 0 ? null : directive.substring(index + 1).replace("\"", ""));
+        }
+        if (cacheControl.containsKey("no-store")
+                || !header(request.headers(), "Authorization").isEmpty() && !cacheControl.containsKey("public")) {
+            return 0;
+        }
+        if (override != null) {
+            return override;
+        }
+        if (cacheControl.containsKey("no-cache")) {
+            return 0;
+        }
+        try {
+            List<String> age = values(response.headers(), "Age");
+            long ageMillis = age.isEmpty() ? 0 : TimeUnit.SECONDS.toMillis(Long.parseLong(age.get(0)));
+            String maxAge = cacheControl.get("max-age");
+            if (maxAge != null) {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(maxAge)) - ageMillis;
+            }
+            // 日期中有逗号, 取原始值
+            Collection<String> expires = response.headers().get("Expires");
+            if (expires != null && !expires.isEmpty()) {
+                Collection<String> date = response.headers().get("Date");
+                long now = date == null || date.isEmpty() ? System.currentTimeMillis() : parseDate(date.iterator().next());
+                return parseDate(expires.iterator().next()) - now - ageMillis;
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return 0;
+        }
+        return 0;
+    }
+
+    private static long parseDate(String date) {
+        return ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 逗号分隔的 header 值, 小写
+     */
+    private static List<String> values(Map<String, Collection<String>> headers, String name) {
+        Collection<String> values = headers.get(name);
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        for (String value : values) {
+            for (String part : value.split(",")) {
+                if (!part.trim().isEmpty()) {
+                    result.add(part.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 请求头不区分大小写
+     */
+    private static Collection<String> header(Map<String, Collection<String>> headers, String name) {
+        for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private static class Entry {
+        private final int status;
+        private final String reason;
+        private final Map<String, Collection<String>> headers;
+        private final byte[] body;
+        private final long expiresAt;
+        /**
+         * Vary 中的请求头在缓存时的值
+         */
+        private final Map<String, Collection<String>> vary = new HashMap<>();
+
+        Entry(Response response, byte[] body, long expiresAt, Request request) {
+            this.status = response.status();
+            this.reason = response.reason();
+            this.headers = response.headers();
+            this.body = body;
+            this.expiresAt = expiresAt;
+            for (String name : values(response.headers(), "Vary")) {
+                vary.put(name, new ArrayList<>(header(request.headers(), name)));
+            }
+        }
+
+        boolean matches(Request request) {
+            for (Map.Entry<String, Collection<String>> header : vary.entrySet()) {
+                if (!new ArrayList<>(header(request.headers(), header.getKey())).equals(header.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Response toResponse(Request request) {
+            return Response.builder().status(status).reason(reason).headers(headers).body(body).request(request).build();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package cn.springcloud.feign;
+
+import java.lang.annotation.*;
+
+/**
+ * feign 接口或 GET 方法上声明后, 同时发出的相同请求(方法、url、query、声明的请求头和 Authorization、Cookie 都相同)只发送一次,
+ * 共享同一个响应, 需开启 venus.feign.single-flight.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface VenusSingleFlight {
+
+    /**
+     * 是否合并, 可在方法上关闭接口上的声明
+     */
+    boolean value() default true;
+}
@@ -1,5 +1,6 @@
 package cn.springcloud.feign;
 
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -20,17 +21,22 @@ import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.util.Assert;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import static feign.Util.checkState;
 import static feign.Util.emptyToNull;
@@ -57,14 +63,33 @@ public class VenusSpringMvcContract extends VenusBaseContract implements Resourc
 
     private static final String CONTENT_TYPE = "Content-Type";
 
+    private static final String VERSION = "version";
+
     private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
 
     private final Map<Class<? extends Annotation>, AnnotatedParameterProcessor> annotatedArgumentProcessors;
-    private final Map<String, Method> processedMethods = new HashMap<>();
+    /**
+     * 当前线程正在解析的方法, 只在解析期间持有
+     */
+    private final ThreadLocal<Method> processedMethod = new ThreadLocal<>();
 
     private final ConversionService conversionService;
     private final Param.Expander expander;
     private ResourceLoader resourceLoader = new DefaultResourceLoader();
+    /**
+     * 编译期生成的解析结果, 只与默认的参数处理器等价, 自定义处理器时为 null
+     */
+    private VenusPrecompiledContract precompiledContract;
+
+    private VenusFeignMetrics metrics;
+
+    private boolean clientDecorated;
+
+    private boolean binaryCodec;
+
+    private boolean ndjson;
+
+    private boolean apiVersionRouting;
 
     public VenusSpringMvcContract() {
         this(Collections.emptyList());
@@ -88,6 +113,7 @@ public class VenusSpringMvcContract extends VenusBaseContract implements Resourc
         }
         else {
             processors = getDefaultAnnotatedArgumentsProcessors();
+            this.precompiledContract = new VenusPrecompiledContract();
         }
         this.annotatedArgumentProcessors = toAnnotatedArgumentProcessorMap(processors);
         this.conversionService = conversionService;
@@ -99,6 +125,59 @@ public class VenusSpringMvcContract extends VenusBaseContract implements Resourc
         this.resourceLoader = resourceLoader;
     }
 
+    /**
+     * 是否使用 venus-cloud-feign-processor 编译期生成的解析结果
+     */
+    public void setPrecompiled(boolean precompiled) {
+        if (!precompiled) {
+            this.precompiledContract = null;
+        } else if (this.precompiledContract == null && isDefaultProcessors()) {
+            this.precompiledContract = new VenusPrecompiledContract();
+        }
+    }
+
+    /**
+     * 记录解析耗时, 并在 POJO 参数转 query 时按 configKey 记录指标
+     */
+    public void setMetrics(VenusFeignMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 有 {@link VenusClientDecorator} 时在请求头中携带 configKey 等方法信息
+     */
+    public void setClientDecorated(boolean clientDecorated) {
+        this.clientDecorated = clientDecorated;
+    }
+
+    /**
+     * 返回 json 的方法在 Accept 中优先 smile, 由 {@link VenusBinaryCodec} 处理
+     */
+    public void setBinaryCodec(boolean binaryCodec) {
+        this.binaryCodec = binaryCodec;
+    }
+
+    /**
+     * 返回 Stream、Iterator 的方法在 Accept 中优先 NDJSON
+     */
+    public void setNdjson(boolean ndjson) {
+        this.ndjson = ndjson;
+    }
+
+    /**
+     * 路径中 {version} 使用默认值的方法记录版本, 由 {@link VenusApiVersionRouting} 按版本选择实例
+     */
+    public void setApiVersionRouting(boolean apiVersionRouting) {
+        this.apiVersionRouting = apiVersionRouting;
+    }
+
+    private boolean isDefaultProcessors() {
+        return annotatedArgumentProcessors.size() == 3
+                && annotatedArgumentProcessors.get(PathVariable.class) instanceof PathVariableParameterProcessor
+                && annotatedArgumentProcessors.get(RequestParam.class) instanceof RequestParamParameterProcessor
+                && annotatedArgumentProcessors.get(RequestHeader.class) instanceof RequestHeaderParameterProcessor;
+    }
+
     @Override
     protected void processAnnotationOnClass(MethodMetadata data, Class<?> clz) {
         if (clz.getInterfaces().length == 0) {
@@ -128,6 +207,21 @@ public class VenusSpringMvcContract extends VenusBaseContract implements Resourc
         throw new IllegalArgumentException("no default value for " + pathVariable);
     }
 
+    /**
+     * 路径中的 {version} 没有对应的方法参数、由 @ApiImplicitParam 的默认值填充时返回该值
+     */
+    private static String apiVersion(Method method, MethodMetadata md) {
+        if (md.template().url().contains("{" + VERSION + "}")) {
+            return null;
+        }
+        for (ApiImplicitParam apiImplicitParam : AnnotatedElementUtils.findAllMergedAnnotations(method, ApiImplicitParam.class)) {
+            if (VERSION.equals(apiImplicitParam.name()) && !apiImplicitParam.allowableValues().isEmpty()) {
+                return apiImplicitParam.allowableValues().split(",")[0].trim();
+            }
+        }
+        return null;
+    }
+
     private boolean hasPathVariable(MethodMetadata methodMetadata, String pathVariable) {
         for (Collection<String> names : methodMetadata.indexToName().values()) {
             if (names.contains(pathVariable)) {
@@ -139,8 +233,81 @@ public class VenusSpringMvcContract extends VenusBaseContract implements Resourc
 
     @Override
     public MethodMetadata parseAndValidateMetadata(Class<?> targetType, Method method) {
-        this.processedMethods.put(Feign.configKey(targetType, method), method);
-        MethodMetadata md = super.parseAndValidateMetadata(targetType, method);
+        // 多个 FeignClient 共用同一个接口时只解析一次
+        return VenusContractRegistry.get(this, targetType, Feign.configKey(targetType, method), () -> {
+            long start = System.nanoTime();
+            MethodMetadata md = doParseAndValidateMetadata(targetType, method);
+            if (this.metrics != null) {
+                this.metrics.recordParse(targetType, System.nanoTime() - start);
+            }
+            // 方法声明的请求头(@RequestHeader 参数、headers), 缓存和合并时计入 key
+            if (this.clientDecorated && !md.template().headers().isEmpty()) {
+                md.template().header(VenusResponseCache.KEY_HEADERS,
+                        StringUtils.collectionToCommaDelimitedString(md.template().headers().keySet()));
+            }
+            // 拦截器、encoder 和 VenusClientDecorator 按 configKey 区分方法, 请求发出前移除
+            if (this.metrics != null || this.clientDecorated) {
+                md.template().header(VenusRequestInterceptor.CONFIG_KEY_HEADER, md.configKey());
+            }
+            VenusCacheable cacheable = findMergedAnnotation(method, VenusCacheable.class);
+            if (cacheable != null && this.clientDecorated) {
+                md.template().header(VenusResponseCache.TTL_HEADER, String.valueOf(cacheable.unit().toMillis(cacheable.ttl())));
+            }
+            VenusSingleFlight singleFlight = findMergedAnnotation(method, VenusSingleFlight.class);
+            if (singleFlight == null) {
+                singleFlight = findMergedAnnotation(targetType, VenusSingleFlight.class);
+            }
+            // 返回 Response 或流的方法不缓冲响应体, 不合并
+            if (singleFlight != null && singleFlight.value() && this.clientDecorated && md.returnType() != Response.class) {
+                md.template().header(VenusRequestCoalescer.SINGLE_FLIGHT_HEADER, "true");
+            }
+            VenusHedged hedged = findMergedAnnotation(method, VenusHedged.class);
+            if (hedged == null) {
+                hedged = findMergedAnnotation(targetType, VenusHedged.class);
+            }
+            if (hedged != null && hedged.value() && this.clientDecorated) {
+                md.template().header(VenusHedging.HEDGE_HEADER, String.valueOf(hedged.percentile()));
+            }
+            String apiVersion = this.apiVersionRouting ? apiVersion(method, md) : null;
+            if (apiVersion != null) {
+                md.template().header(VenusApiVersionRouting.VERSION_HEADER, apiVersion);
+            }
+            if (this.binaryCodec && isJsonResponse(md)) {
+                md.template().header(ACCEPT, VenusBinaryCodec.ACCEPT);
+            }
+            if (this.ndjson && VenusStreamingResponse.isElementStream(method) && !md.template().headers().containsKey(ACCEPT)) {
+                md.template().header(ACCEPT, VenusStreamingResponse.NDJSON_ACCEPT);
+            }
+            return md;
+        });
+    }
+
+    /**
+     * 没有声明 produces 或 produces 为 json, 且返回值不是文本、字节和流
+     */
+    private static boolean isJsonResponse(MethodMetadata md) {
+        Class<?> type = ResolvableType.forType(md.returnType()).resolve(Object.class);
+        return VenusBinaryCodec.isJson(md.template().headers().get(ACCEPT))
+                && type != void.class && type != Void.class && type != String.class && type != byte[].class
+                && !Response.class.isAssignableFrom(type) && !Resource.class.isAssignableFrom(type)
+                && !InputStream.class.isAssignableFrom(type);
+    }
+
+    private MethodMetadata doParseAndValidateMetadata(Class<?> targetType, Method method) {
+        if (this.precompiledContract != null) {
+            VenusPrecompiledContract.MethodDescriptor descriptor = this.precompiledContract
+                    .find(targetType, Feign.configKey(targetType, method));
+            if (descriptor != null) {
+                return parsePrecompiledMetadata(targetType, method, descriptor);
+            }
+        }
+        MethodMetadata md;
+        this.processedMethod.set(method);
+        try {
+            md = super.parseAndValidateMetadata(targetType, method);
+        } finally {
+            this.processedMethod.remove();
+        }
 
         RequestMapping classAnnotation = findMergedAnnotation(targetType,
                 RequestMapping.class);
@@ -191,6 +358,44 @@ public class VenusSpringMvcContract extends VenusBaseContract implements Resourc
         return md;
     }
 
+    /**
+     * 直接使用编译期的解析结果, 与反射解析的结果一致
+     */
+    private MethodMetadata parsePrecompiledMetadata(Class<?> targetType, Method method,
+                                                    VenusPrecompiledContract.MethodDescriptor descriptor) {
+        MethodMetadata md = newMethodMetadata(targetType, method);
+        RequestTemplate template = md.template();
+        template.method(descriptor.method);
+        template.append(descriptor.url);
+        md.indexToExpander(new LinkedHashMap<Integer, Param.Expander>());
+        for (Map.Entry<String, List<String>> header : descriptor.headers.entrySet()) {
+            template.header(header.getKey(), header.getValue());
+        }
+        for (Map.Entry<String, List<String>> query : descriptor.queries.entrySet()) {
+            template.query(query.getKey(), query.getValue());
+        }
+        for (Map.Entry<Integer, List<String>> names : descriptor.indexToName.entrySet()) {
+            md.indexToName().put(names.getKey(), new ArrayList<>(names.getValue()));
+        }
+        md.formParams().addAll(descriptor.formParams);
+        for (int paramIndex : descriptor.httpParams) {
+            if (this.conversionService.canConvert(method.getParameterTypes()[paramIndex], String.class)) {
+                md.indexToExpander().put(paramIndex, this.expander);
+            }
+        }
+        md.urlIndex(descriptor.urlIndex);
+        md.headerMapIndex(descriptor.headerMapIndex);
+        md.queryMapIndex(descriptor.queryMapIndex);
+        if (descriptor.bodyIndex != null) {
+            md.bodyIndex(descriptor.bodyIndex);
+            md.bodyType(resolveParameterType(targetType, method, descriptor.bodyIndex));
+            streamingBody(md, method.getParameterTypes()[descriptor.bodyIndex]);
+        }
+
+        LOGGER.info("{} > {}", descriptor.rawUrl, descriptor.url);
+        return md;
+    }
+
     @Override
     protected void processAnnotationOnMethod(MethodMetadata data,
                                              Annotation methodAnnotation, Method method) {
@@ -264,7 +469,7 @@ public class VenusSpringMvcContract extends VenusBaseContract implements Resourc
 
         AnnotatedParameterProcessor.AnnotatedParameterContext context = new VenusSpringMvcContract.SimpleAnnotatedParameterContext(
                 data, paramIndex);
-        Method method = this.processedMethods.get(data.configKey());
+        Method method = this.processedMethod.get();
         for (Annotation parameterAnnotation : annotations) {
             AnnotatedParameterProcessor processor = this.annotatedArgumentProcessors
                     .get(parameterAnnotation.annotationType());
@@ -0,0 +1,27 @@
+package cn.springcloud.feign;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.openfeign.VenusStreamingTargeter;
+
+/**
+ * 把 openfeign 的 Targeter 换成 {@link VenusStreamingTargeter}, 只有包含返回流的方法的接口会被代理
+ */
+public class VenusStreamingClientPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+    private BeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (VenusStreamingTargeter.isTargeter(bean)) {
+            return new VenusStreamingTargeter(bean, beanFactory);
+        }
+        return bean;
+    }
+}
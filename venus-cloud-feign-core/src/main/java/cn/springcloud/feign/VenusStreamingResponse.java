@@ -0,0 +1,135 @@
+package cn.springcloud.feign;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import feign.Response;
+import feign.Util;
+import feign.codec.ErrorDecoder;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 接口方法返回 InputStream、Resource、StreamingResponseBody 时, contract 按 {@link Response} 解析, 响应体不经过 decoder 缓冲,
+ * 在这里转换为声明的类型, 调用方读完(或写出)后关闭连接. 非 2xx 响应交给 client 的 ErrorDecoder.
+ * 返回 {@code Stream<T>}、{@code Iterator<T>} 时用 jackson 的流式解析逐个读取 json 数组或 NDJSON 中的元素, 内存中只有当前元素.
+ */
+public final class VenusStreamingResponse {
+
+    public static final MediaType NDJSON = new MediaType("application", "x-ndjson");
+
+    /**
+     * 开启 NDJSON 时写入返回元素流的方法模板, 不支持的 provider 按 q 值返回 json 数组
+     */
+    static final String NDJSON_ACCEPT = NDJSON + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.9";
+
+    private static final List<Class<?>> STREAMING_TYPES = Arrays.asList(
+            InputStream.class, Resource.class, InputStreamResource.class, StreamingResponseBody.class,
+            Stream.class, Iterator.class);
+
+    private VenusStreamingResponse() {
+    }
+
+    public static boolean isStreaming(Method method) {
+        return STREAMING_TYPES.contains(method.getReturnType());
+    }
+
+    /**
+     * 返回 {@code Stream<T>} 或 {@code Iterator<T>}
+     */
+    public static boolean isElementStream(Method method) {
+        return method.getReturnType() == Stream.class || method.getReturnType() == Iterator.class;
+    }
+
+    /**
+     * @param reader 按元素类型读取, 只用于 {@link #isElementStream(Method)} 的方法
+     */
+    public static Object convert(Method method, String configKey, Response response, ErrorDecoder errorDecoder,
+                                 ObjectReader reader) throws Exception {
+        if (response.status() < 200 || response.status() >= 300) {
+            try {
+                throw errorDecoder.decode(configKey, response);
+            } finally {
+                Util.ensureClosed(response.body());
+            }
+        }
+        Class<?> type = method.getReturnType();
+        Response.Body body = response.body();
+        if (type == StreamingResponseBody.class) {
+            return (StreamingResponseBody) out -> {
+                if (body != null) {
+                    try (InputStream in = body.asInputStream()) {
+                        StreamUtils.copy(in, out);
+                    }
+                }
+            };
+        }
+        if (isElementStream(method)) {
+            // 读完最后一个元素时关闭连接, Stream 未读完时需要调用方 close
+            Iterator<Object> elements = body == null ? Collections.emptyIterator()
+                    : reader.readValues(body.asInputStream());
+            if (type == Iterator.class) {
+                return elements;
+            }
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(elements, Spliterator.ORDERED), false)
+                    .onClose(() -> Util.ensureClosed(body));
+        }
+        if (type == InputStream.class) {
+            return body == null ? StreamUtils.emptyInput() : body.asInputStream();
+        }
+        if (body == null) {
+            return null;
+        }
+        return new ResponseResource(body.asInputStream(), configKey, body.length(), filename(response.headers()));
+    }
+
+    private static String filename(Map<String, Collection<String>> headers) {
+        for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+            if ("Content-Disposition".equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return ContentDisposition.parse(header.getValue().iterator().next()).getFilename();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 只能读取一次, 长度和文件名取自响应头
+     */
+    private static class ResponseResource extends InputStreamResource {
+        private final Integer length;
+        private final String filename;
+
+        ResponseResource(InputStream inputStream, String description, Integer length, String filename) {
+            super(inputStream, description);
+            this.length = length;
+            this.filename = filename;
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            // 父类会读完整个流来计算长度
+            return length == null ? -1 : length;
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+    }
+}
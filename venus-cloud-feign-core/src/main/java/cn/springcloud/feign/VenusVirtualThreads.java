@@ -0,0 +1,54 @@
+package cn.springcloud.feign;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * JDK 21 虚拟线程, 通过反射调用, 编译和运行在 Java 8 上不受影响
+ */
+public final class VenusVirtualThreads {
+
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+
+    private VenusVirtualThreads() {
+    }
+
+    /**
+     * JDK 19、20 中虚拟线程是预览特性, 不使用
+     */
+    public static boolean isAvailable() {
+        String version = System.getProperty("java.specification.version");
+        return OF_VIRTUAL != null && !version.startsWith("1.") && Integer.parseInt(version) >= 21;
+    }
+
+    /**
+     * 每个任务一个虚拟线程的 executor, 线程名为 prefix 加序号
+     *
+     * @throws IllegalStateException 当前 JDK 不支持虚拟线程
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("virtual threads require JDK 21+, current " + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("failed to create virtual thread executor", e);
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
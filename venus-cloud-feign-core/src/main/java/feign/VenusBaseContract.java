@@ -4,18 +4,42 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import static feign.Util.checkState;
 
 public abstract class VenusBaseContract extends Contract.BaseContract {
 
+    private static final String FLUX = "reactor.core.publisher.Flux";
+
+    /**
+     * 异步返回类型, 按类名判断, 不依赖 reactor
+     */
+    private static final List<String> ASYNC_TYPES = Arrays.asList(
+            "java.util.concurrent.CompletableFuture", "reactor.core.publisher.Mono", FLUX);
+
+    /**
+     * 流式返回类型, 按 {@link Response} 解析, 响应体不经过 decoder 缓冲, 由调用方转换为声明的类型;
+     * Stream、Iterator 逐个解析元素
+     */
+    private static final List<String> STREAMING_TYPES = Arrays.asList("java.io.InputStream",
+            "org.springframework.core.io.Resource", "org.springframework.core.io.InputStreamResource",
+            "org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody",
+            "java.util.stream.Stream", "java.util.Iterator");
+
+    /**
+     * 流式请求体, 没有声明 Content-Type 时按 application/octet-stream 原样发送, 不做 json 序列化
+     */
+    private static final List<String> STREAMING_BODY_TYPES = Arrays.asList("java.io.InputStream",
+            "org.springframework.core.io.Resource", "org.springframework.core.io.InputStreamResource");
+
     @Override
     protected MethodMetadata parseAndValidateMetadata(Class<?> targetType, Method method) {
-        MethodMetadata data = new MethodMetadata();
-        data.returnType(Types.resolve(targetType, targetType, method.getGenericReturnType()));
-        data.configKey(Feign.configKey(targetType, method));
+        MethodMetadata data = newMethodMetadata(targetType, method);
 
         if (targetType.getInterfaces().length == 1) {
             processAnnotationOnClass(data, targetType.getInterfaces()[0]);
@@ -46,7 +70,8 @@ public abstract class VenusBaseContract extends Contract.BaseContract {
 //                        "Body parameters cannot be used with form parameters.");
                 checkState(data.bodyIndex() == null, "Method has too many Body parameters: %s", method);
                 data.bodyIndex(i);
-                data.bodyType(Types.resolve(targetType, targetType, genericParameterTypes[i]));
+                data.bodyType(resolveParameterType(targetType, method, i));
+                streamingBody(data, parameterTypes[i]);
             }
         }
 
@@ -61,6 +86,53 @@ public abstract class VenusBaseContract extends Contract.BaseContract {
         return data;
     }
 
+    /**
+     * MethodMetadata 的构造方法只对 feign 包可见
+     */
+    protected MethodMetadata newMethodMetadata(Class<?> targetType, Method method) {
+        MethodMetadata data = new MethodMetadata();
+        data.returnType(resolveReturnType(targetType, method));
+        data.configKey(Feign.configKey(targetType, method));
+        return data;
+    }
+
+    /**
+     * 流式返回类型按 {@link Response} 解析;
+     * {@code CompletableFuture<T>}、{@code Mono<T>} 按 T 解码, {@code Flux<T>} 按 {@code List<T>} 解码, 由调用方包装成异步结果
+     */
+    protected Type resolveReturnType(Class<?> targetType, Method method) {
+        Type type = Types.resolve(targetType, targetType, method.getGenericReturnType());
+        String rawType = method.getReturnType().getName();
+        if (STREAMING_TYPES.contains(rawType)) {
+            return Response.class;
+        }
+        if (!ASYNC_TYPES.contains(rawType)) {
+            return type;
+        }
+        checkState(type instanceof ParameterizedType, "%s must declare its element type: %s", rawType, method);
+        Type element = ((ParameterizedType) type).getActualTypeArguments()[0];
+        if (element instanceof WildcardType) {
+            element = ((WildcardType) element).getUpperBounds()[0];
+        }
+        if (element == Void.class) {
+            return void.class;
+        }
+        return FLUX.equals(rawType) ? new Types.ParameterizedTypeImpl(null, List.class, element) : element;
+    }
+
+    /**
+     * 流式请求体没有声明 Content-Type 时使用 application/octet-stream, 编译期解析的方法也需要调用
+     */
+    protected void streamingBody(MethodMetadata data, Class<?> bodyType) {
+        if (STREAMING_BODY_TYPES.contains(bodyType.getName()) && !data.template().headers().containsKey("Content-Type")) {
+            data.template().header("Content-Type", "application/octet-stream");
+        }
+    }
+
+    protected Type resolveParameterType(Class<?> targetType, Method method, int index) {
+        return Types.resolve(targetType, targetType, method.getGenericParameterTypes()[index]);
+    }
+
     private static void checkMapString(String name, Class<?> type, Type genericType) {
         checkState(Map.class.isAssignableFrom(type),
                 "%s parameter must be a Map: %s", name, type);
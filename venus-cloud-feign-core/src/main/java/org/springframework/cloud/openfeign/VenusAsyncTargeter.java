@@ -0,0 +1,89 @@
+package org.springframework.cloud.openfeign;
+
+import cn.springcloud.feign.VenusAsyncInvoker;
+import feign.Feign;
+import feign.Target;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.Supplier;
+
+/**
+ * 接口中有 CompletableFuture、Mono、Flux 返回值的方法时在 client 外再包一层代理, 把这些方法的同步调用交给 {@link VenusAsyncInvoker}.
+ * Targeter 只对 openfeign 包可见, 所以放在这个包下.
+ */
+public class VenusAsyncTargeter implements Targeter {
+
+    private final Targeter delegate;
+
+    private final Supplier<VenusAsyncInvoker> invoker;
+
+    public VenusAsyncTargeter(Object delegate, Supplier<VenusAsyncInvoker> invoker) {
+        this.delegate = (Targeter) delegate;
+        this.invoker = invoker;
+    }
+
+    public static boolean isTargeter(Object bean) {
+        return bean instanceof Targeter && !(bean instanceof VenusAsyncTargeter);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T target(FeignClientFactoryBean factory, Feign.Builder feign, FeignContext context,
+                        Target.HardCodedTarget<T> target) {
+        T remote = delegate.target(factory, feign, context, target);
+        boolean async = false;
+        for (Method method : target.type().getMethods()) {
+            async |= VenusAsyncInvoker.isAsync(method);
+        }
+        if (!async) {
+            return remote;
+        }
+        return (T) Proxy.newProxyInstance(target.type().getClassLoader(), new Class<?>[]{target.type()},
+                new AsyncInvocationHandler(target, remote, invoker.get()));
+    }
+
+    private static class AsyncInvocationHandler implements InvocationHandler {
+        private final Target<?> target;
+        private final Object remote;
+        private final VenusAsyncInvoker invoker;
+
+        AsyncInvocationHandler(Target<?> target, Object remote, VenusAsyncInvoker invoker) {
+            this.target = target;
+            this.remote = remote;
+            this.invoker = invoker;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                Object other = args[0];
+                return other != null && Proxy.isProxyClass(other.getClass())
+                        && Proxy.getInvocationHandler(other) instanceof AsyncInvocationHandler
+                        && target.equals(((AsyncInvocationHandler) Proxy.getInvocationHandler(other)).target);
+            } else if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                return target.hashCode();
+            } else if ("toString".equals(method.getName()) && method.getParameterCount() == 0) {
+                return target.toString();
+            }
+
+            if (VenusAsyncInvoker.isAsync(method)) {
+                return invoker.invoke(method, () -> invokeRemote(method, args));
+            }
+            return invokeRemote(method, args);
+        }
+
+        private Object invokeRemote(Method method, Object[] args) throws Throwable {
+            if (Proxy.isProxyClass(remote.getClass())) {
+                return Proxy.getInvocationHandler(remote).invoke(remote, method, args);
+            }
+            try {
+                return method.invoke(remote, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
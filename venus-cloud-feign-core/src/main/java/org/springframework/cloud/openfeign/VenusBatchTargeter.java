@@ -0,0 +1,115 @@
+package org.springframework.cloud.openfeign;
+
+import cn.springcloud.feign.VenusBatch;
+import cn.springcloud.feign.VenusCallBatcher;
+import feign.Feign;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import feign.Target;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 接口中有 {@link VenusBatch} 方法时在 client 外再包一层代理, 合并这些方法的调用.
+ * Targeter 只对 openfeign 包可见, 所以放在这个包下.
+ */
+public class VenusBatchTargeter implements Targeter {
+
+    private final Targeter delegate;
+
+    public VenusBatchTargeter(Object delegate) {
+        this.delegate = (Targeter) delegate;
+    }
+
+    public static boolean isTargeter(Object bean) {
+        return bean instanceof Targeter && !(bean instanceof VenusBatchTargeter);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T target(FeignClientFactoryBean factory, Feign.Builder feign, FeignContext context,
+                        Target.HardCodedTarget<T> target) {
+        T remote = delegate.target(factory, feign, context, target);
+        Map<Method, VenusCallBatcher> batchers = VenusCallBatcher.forType(target.type());
+        if (batchers.isEmpty()) {
+            return remote;
+        }
+        Map<String, RequestInterceptor> interceptors = context.getInstances(factory.getName(), RequestInterceptor.class);
+        return (T) Proxy.newProxyInstance(target.type().getClassLoader(), new Class<?>[]{target.type()},
+                new BatchInvocationHandler(target, remote, batchers,
+                        interceptors == null ? Collections.emptyList() : new ArrayList<>(interceptors.values())));
+    }
+
+    private static class BatchInvocationHandler implements InvocationHandler {
+        private final Target<?> target;
+        private final Object remote;
+        private final Map<Method, VenusCallBatcher> batchers;
+        private final List<RequestInterceptor> interceptors;
+
+        BatchInvocationHandler(Target<?> target, Object remote, Map<Method, VenusCallBatcher> batchers,
+                               List<RequestInterceptor> interceptors) {
+            this.target = target;
+            this.remote = remote;
+            this.batchers = batchers;
+            this.interceptors = interceptors;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                Object other = args[0];
+                return other != null && Proxy.isProxyClass(other.getClass())
+                        && Proxy.getInvocationHandler(other) instanceof BatchInvocationHandler
+                        && target.equals(((BatchInvocationHandler) Proxy.getInvocationHandler(other)).target);
+            } else if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                return target.hashCode();
+            } else if ("toString".equals(method.getName()) && method.getParameterCount() == 0) {
+                return target.toString();
+            }
+
+            VenusCallBatcher batcher = batchers.get(method);
+            if (batcher != null && args[0] != null) {
+                Object group = group();
+                if (group != null) {
+                    return batcher.call(this::invokeRemote, args[0], group);
+                }
+            }
+            return invokeRemote(method, args);
+        }
+
+        /**
+         * 在调用方线程中执行 RequestInterceptor, 以写入的 header 作为分组, 复制了请求上下文中身份信息的调用不会合并到一起.
+         * RequestInterceptor 不能处理空模板时返回 null, 不合并
+         */
+        private Object group() {
+            if (interceptors.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            RequestTemplate template = new RequestTemplate();
+            try {
+                interceptors.forEach(interceptor -> interceptor.apply(template));
+            } catch (RuntimeException e) {
+                return null;
+            }
+            return template.headers();
+        }
+
+        private Object invokeRemote(Method method, Object[] args) throws Throwable {
+            if (Proxy.isProxyClass(remote.getClass())) {
+                return Proxy.getInvocationHandler(remote).invoke(remote, method, args);
+            }
+            try {
+                return method.invoke(remote, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.springframework.cloud.openfeign;
+
+import feign.Client;
+import feign.Feign;
+import feign.Target;
+import feign.codec.Encoder;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.function.UnaryOperator;
+
+/**
+ * 在 client 创建前包装 Feign.Builder 中的 {@link Client} 和 {@link Encoder}, 此时 FeignClientFactoryBean 已经设置好负载均衡的 client.
+ * Targeter 只对 openfeign 包可见, 所以放在这个包下.
+ */
+public class VenusClientTargeter implements Targeter {
+
+    private static final Field CLIENT = ReflectionUtils.findField(Feign.Builder.class, "client");
+
+    private static final Field ENCODER = ReflectionUtils.findField(Feign.Builder.class, "encoder");
+
+    static {
+        ReflectionUtils.makeAccessible(CLIENT);
+        ReflectionUtils.makeAccessible(ENCODER);
+    }
+
+    private final Targeter delegate;
+
+    private final UnaryOperator<Client> decorator;
+
+    private final UnaryOperator<Encoder> encoderDecorator;
+
+    public VenusClientTargeter(Object delegate, UnaryOperator<Client> decorator, UnaryOperator<Encoder> encoderDecorator) {
+        this.delegate = (Targeter) delegate;
+        this.decorator = decorator;
+        this.encoderDecorator = encoderDecorator;
+    }
+
+    public static boolean isTargeter(Object bean) {
+        return bean instanceof Targeter && !(bean instanceof VenusClientTargeter);
+    }
+
+    @Override
+    public <T> T target(FeignClientFactoryBean factory, Feign.Builder feign, FeignContext context,
+                        Target.HardCodedTarget<T> target) {
+        feign.client(decorator.apply((Client) ReflectionUtils.getField(CLIENT, feign)));
+        feign.encoder(encoderDecorator.apply((Encoder) ReflectionUtils.getField(ENCODER, feign)));
+        return delegate.target(factory, feign, context, target);
+    }
+}
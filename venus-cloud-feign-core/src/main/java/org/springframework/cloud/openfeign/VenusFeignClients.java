@@ -0,0 +1,110 @@
+package org.springframework.cloud.openfeign;
+
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 容器中声明的 feign client, 地址与 FeignClientFactoryBean 创建 client 时的规则一致.
+ * FeignClientFactoryBean 只对 openfeign 包可见, 所以放在这个包下.
+ */
+public final class VenusFeignClients {
+
+    private VenusFeignClients() {
+    }
+
+    /**
+     * 不会提前创建 client
+     */
+    public static List<Definition> find(ListableBeanFactory beanFactory) {
+        List<Definition> definitions = new ArrayList<>();
+        for (String beanName : beanFactory.getBeanNamesForType(FeignClientFactoryBean.class, true, false)) {
+            FeignClientFactoryBean factory = (FeignClientFactoryBean) beanFactory.getBean(beanName);
+            definitions.add(new Definition(factory));
+        }
+        return definitions;
+    }
+
+    /**
+     * 只读取 bean 定义中的接口类型, 不会创建 FeignClientFactoryBean, 类加载失败的接口跳过
+     */
+    public static Set<Class<?>> types(ConfigurableListableBeanFactory beanFactory) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+            if (!FeignClientFactoryBean.class.getName().equals(definition.getBeanClassName())) {
+                continue;
+            }
+            Object type = definition.getPropertyValues().get("type");
+            if (type instanceof Class) {
+                types.add((Class<?>) type);
+            } else if (type instanceof String && ClassUtils.isPresent((String) type, beanFactory.getBeanClassLoader())) {
+                types.add(ClassUtils.resolveClassName((String) type, beanFactory.getBeanClassLoader()));
+            }
+        }
+        return types;
+    }
+
+    public static class Definition {
+        private final String name;
+        private final Class<?> type;
+        private final String url;
+        private final boolean loadBalanced;
+
+        Definition(FeignClientFactoryBean factory) {
+            this.name = factory.getName();
+            this.type = factory.getType();
+            this.loadBalanced = !StringUtils.hasText(factory.getUrl());
+            String url = this.loadBalanced ? factory.getName() : factory.getUrl();
+            if (!url.startsWith("http")) {
+                url = "http://" + url;
+            }
+            this.url = url + cleanPath(factory.getPath());
+        }
+
+        private static String cleanPath(String path) {
+            if (!StringUtils.hasText(path)) {
+                return "";
+            }
+            path = path.trim();
+            if (!path.startsWith("/")) {
+                path = "/" + path;
+            }
+            return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        }
+
+        /**
+         * FeignContext 中子容器的名称
+         */
+        public String getName() {
+            return name;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * 没有指定 url, 经过 ribbon 选择实例
+         */
+        public boolean isLoadBalanced() {
+            return loadBalanced;
+        }
+
+        @Override
+        public String toString() {
+            return type.getSimpleName() + "(" + url + ")";
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.springframework.cloud.openfeign;
+
+import feign.Feign;
+import feign.Target;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 延迟创建 feign client: 启动时只生成代理, 接口解析和 MethodHandler 的构建推迟到第一次调用或后台预热.
+ * Targeter 只对 openfeign 包可见, 所以放在这个包下.
+ */
+public class VenusLazyTargeter implements Targeter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VenusLazyTargeter.class);
+
+    private final Targeter delegate;
+
+    private final boolean warmUp;
+
+    /**
+     * 等待后台预热的 client, 预热完成后清空
+     */
+    private final Queue<LazyInvocationHandler> pending = new ConcurrentLinkedQueue<>();
+
+    public VenusLazyTargeter(Object delegate, boolean warmUp) {
+        this.delegate = (Targeter) delegate;
+        this.warmUp = warmUp;
+    }
+
+    public static boolean isTargeter(Object bean) {
+        return bean instanceof Targeter && !(bean instanceof VenusLazyTargeter);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T target(FeignClientFactoryBean factory, Feign.Builder feign, FeignContext context,
+                        Target.HardCodedTarget<T> target) {
+        LazyInvocationHandler handler = new LazyInvocationHandler(target,
+                () -> delegate.target(factory, feign, context, target));
+        if (warmUp) {
+            pending.add(handler);
+        }
+        return (T) Proxy.newProxyInstance(target.type().getClassLoader(), new Class<?>[]{target.type()}, handler);
+    }
+
+    /**
+     * 在后台线程池中创建尚未调用过的 client, 失败只记录日志, 调用时会再次抛出
+     */
+    public void warmUp(int threads) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "venus-feign-warm-up-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        LazyInvocationHandler handler;
+        while ((handler = pending.poll()) != null) {
+            LazyInvocationHandler warming = handler;
+            executor.execute(() -> {
+                try {
+                    warming.delegate();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("warm up {} failed", warming.target, e);
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    private static class LazyInvocationHandler implements InvocationHandler {
+        private final Target<?> target;
+        private final Supplier<Object> factory;
+        private volatile Object delegate;
+
+        LazyInvocationHandler(Target<?> target, Supplier<Object> factory) {
+            this.target = target;
+            this.factory = factory;
+        }
+
+        Object delegate() {
+            Object result = delegate;
+            if (result == null) {
+                synchronized (this) {
+                    result = delegate;
+                    if (result == null) {
+                        result = factory.get();
+                        delegate = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // 与 FeignInvocationHandler 一致, Object 的方法不触发 client 的创建
+            if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                Object other = args[0];
+                return other != null && Proxy.isProxyClass(other.getClass())
+                        && Proxy.getInvocationHandler(other) instanceof LazyInvocationHandler
+                        && target.equals(((LazyInvocationHandler) Proxy.getInvocationHandler(other)).target);
+            } else if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                return target.hashCode();
+            } else if ("toString".equals(method.getName()) && method.getParameterCount() == 0) {
+                return target.toString();
+            }
+
+            Object client = delegate();
+            if (Proxy.isProxyClass(client.getClass())) {
+                return Proxy.getInvocationHandler(client).invoke(client, method, args);
+            }
+            try {
+                return method.invoke(client, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.springframework.cloud.openfeign;
+
+import cn.springcloud.feign.VenusLocalInvoker;
+import feign.Feign;
+import feign.Target;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 进程内存在 feign 接口的实现 bean 时直接调用该 bean, 不再经过 http.
+ * 容器刷新完成前、找不到或找到多个实现时仍然远程调用. 需要判断 bean 是否由 FeignClientFactoryBean 创建, 所以放在这个包下.
+ */
+public class VenusLocalTargeter implements Targeter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VenusLocalTargeter.class);
+
+    /**
+     * 没有本地实现
+     */
+    private static final Object REMOTE = new Object();
+
+    private final Targeter delegate;
+
+    private final ConfigurableListableBeanFactory beanFactory;
+
+    /**
+     * 容器刷新完成后设置, 之前的调用都走远程
+     */
+    private volatile VenusLocalInvoker invoker;
+
+    public VenusLocalTargeter(Object delegate, ConfigurableListableBeanFactory beanFactory) {
+        this.delegate = (Targeter) delegate;
+        this.beanFactory = beanFactory;
+    }
+
+    public static boolean isTargeter(Object bean) {
+        return bean instanceof Targeter && !(bean instanceof VenusLocalTargeter);
+    }
+
+    public void setInvoker(VenusLocalInvoker invoker) {
+        this.invoker = invoker;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T target(FeignClientFactoryBean factory, Feign.Builder feign, FeignContext context,
+                        Target.HardCodedTarget<T> target) {
+        T remote = delegate.target(factory, feign, context, target);
+        return (T) Proxy.newProxyInstance(target.type().getClassLoader(), new Class<?>[]{target.type()},
+                new LocalInvocationHandler(target, remote));
+    }
+
+    /**
+     * 接口的实现 bean, 排除 FeignClientFactoryBean 创建的 client
+     */
+    private Object findLocal(Class<?> type) {
+        List<String> candidates = new ArrayList<>();
+        for (String name : beanFactory.getBeanNamesForType(type, true, false)) {
+            if (!beanFactory.isFactoryBean(name)
+                    || !(beanFactory.getBean(BeanFactory.FACTORY_BEAN_PREFIX + name) instanceof FeignClientFactoryBean)) {
+                candidates.add(name);
+            }
+        }
+        if (candidates.size() != 1) {
+            if (candidates.size() > 1) {
+                LOGGER.warn("{} has multiple local implementations {}, use remote", type.getName(), candidates);
+            }
+            return REMOTE;
+        }
+        LOGGER.info("{} > local bean {}", type.getName(), candidates.get(0));
+        return beanFactory.getBean(candidates.get(0));
+    }
+
+    private class LocalInvocationHandler implements InvocationHandler {
+        private final Target<?> target;
+        private final Object remote;
+        private volatile Object local;
+
+        LocalInvocationHandler(Target<?> target, Object remote) {
+            this.target = target;
+            this.remote = remote;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                Object other = args[0];
+                return other != null && Proxy.isProxyClass(other.getClass())
+                        && Proxy.getInvocationHandler(other) instanceof LocalInvocationHandler
+                        && target.equals(((LocalInvocationHandler) Proxy.getInvocationHandler(other)).target);
+            } else if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                return target.hashCode();
+            } else if ("toString".equals(method.getName()) && method.getParameterCount() == 0) {
+                return target.toString();
+            }
+
+            VenusLocalInvoker invoker = VenusLocalTargeter.this.invoker;
+            if (invoker != null && invoker.supports(method)) {
+                Object bean = local;
+                if (bean == null) {
+                    bean = findLocal(target.type());
+                    local = bean;
+                }
+                if (bean != REMOTE) {
+                    return invoker.invoke(bean, method, args);
+                }
+            }
+            if (Proxy.isProxyClass(remote.getClass())) {
+                return Proxy.getInvocationHandler(remote).invoke(remote, method, args);
+            }
+            try {
+                return method.invoke(remote, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.springframework.cloud.openfeign;
+
+import cn.springcloud.feign.VenusStreamingResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import feign.Feign;
+import feign.Response;
+import feign.Target;
+import feign.codec.ErrorDecoder;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 接口中有返回流的方法时在 client 外再包一层代理, 把 feign 返回的 {@link Response} 交给 {@link VenusStreamingResponse} 转换.
+ * 元素流按容器中的 ObjectMapper 解析. Targeter 只对 openfeign 包可见, 所以放在这个包下.
+ */
+public class VenusStreamingTargeter implements Targeter {
+
+    private static final Field ERROR_DECODER = ReflectionUtils.findField(Feign.Builder.class, "errorDecoder");
+
+    static {
+        ReflectionUtils.makeAccessible(ERROR_DECODER);
+    }
+
+    private final Targeter delegate;
+
+    private final BeanFactory beanFactory;
+
+    private volatile ObjectMapper objectMapper;
+
+    public VenusStreamingTargeter(Object delegate, BeanFactory beanFactory) {
+        this.delegate = (Targeter) delegate;
+        this.beanFactory = beanFactory;
+    }
+
+    public static boolean isTargeter(Object bean) {
+        return bean instanceof Targeter && !(bean instanceof VenusStreamingTargeter);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T target(FeignClientFactoryBean factory, Feign.Builder feign, FeignContext context,
+                        Target.HardCodedTarget<T> target) {
+        // FeignClientFactoryBean 已经设置好 ErrorDecoder
+        ErrorDecoder errorDecoder = (ErrorDecoder) ReflectionUtils.getField(ERROR_DECODER, feign);
+        T remote = delegate.target(factory, feign, context, target);
+        boolean streaming = false;
+        for (Method method : target.type().getMethods()) {
+            streaming |= VenusStreamingResponse.isStreaming(method);
+        }
+        if (!streaming) {
+            return remote;
+        }
+        return (T) Proxy.newProxyInstance(target.type().getClassLoader(), new Class<?>[]{target.type()},
+                new StreamingInvocationHandler(target, remote, errorDecoder));
+    }
+
+    /**
+     * 第一次调用时获取, 避免 Targeter 初始化时提前创建 ObjectMapper
+     */
+    private ObjectMapper objectMapper() {
+        if (objectMapper == null) {
+            objectMapper = beanFactory.getBean(ObjectMapper.class);
+        }
+        return objectMapper;
+    }
+
+    private class StreamingInvocationHandler implements InvocationHandler {
+        private final Target<?> target;
+        private final Object remote;
+        private final ErrorDecoder errorDecoder;
+        private final Map<Method, ObjectReader> readers = new ConcurrentHashMap<>();
+
+        StreamingInvocationHandler(Target<?> target, Object remote, ErrorDecoder errorDecoder) {
+            this.target = target;
+            this.remote = remote;
+            this.errorDecoder = errorDecoder;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                Object other = args[0];
+                return other != null && Proxy.isProxyClass(other.getClass())
+                        && Proxy.getInvocationHandler(other) instanceof StreamingInvocationHandler
+                        && target.equals(((StreamingInvocationHandler) Proxy.getInvocationHandler(other)).target);
+            } else if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                return target.hashCode();
+            } else if ("toString".equals(method.getName()) && method.getParameterCount() == 0) {
+                return target.toString();
+            }
+
+            Object result = invokeRemote(method, args);
+            if (VenusStreamingResponse.isStreaming(method) && result instanceof Response) {
+                ObjectReader reader = VenusStreamingResponse.isElementStream(method) ? reader(method) : null;
+                return VenusStreamingResponse.convert(method, Feign.configKey(target.type(), method),
+                        (Response) result, errorDecoder, reader);
+            }
+            return result;
+        }
+
+        private ObjectReader reader(Method method) {
+            ObjectReader reader = readers.get(method);
+            if (reader == null) {
+                // 接口继承的泛型方法按 client 接口解析元素类型
+                Type returnType = GenericTypeResolver.resolveType(method.getGenericReturnType(), target.type());
+                Type elementType = returnType instanceof ParameterizedType
+                        ? ((ParameterizedType) returnType).getActualTypeArguments()[0] : Object.class;
+                reader = objectMapper().readerFor(objectMapper().constructType(elementType));
+                readers.put(method, reader);
+            }
+            return reader;
+        }
+
+        private Object invokeRemote(Method method, Object[] args) throws Throwable {
+            if (Proxy.isProxyClass(remote.getClass())) {
+                return Proxy.getInvocationHandler(remote).invoke(remote, method, args);
+            }
+            try {
+                return method.invoke(remote, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,683 @@
+package cn.springcloud.feign.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 编译期预先计算 @FeignClient 接口的 VenusSpringMvcContract 解析结果, 写入
+ * META-INF/venus/contract/{接口全名}.properties, 运行时直接加载, 省去启动时的注解反射和url正则处理.
+ * 结果依赖运行时环境的方法(占位符、自定义组合注解等)不会写入, 运行时仍走反射解析.
+ */
+@SupportedAnnotationTypes(VenusContractProcessor.FEIGN_CLIENT)
+public class VenusContractProcessor extends AbstractProcessor {
+
+    static final String FEIGN_CLIENT = "org.springframework.cloud.openfeign.FeignClient";
+
+    static final String LOCATION = "META-INF/venus/contract/";
+
+    static final String VERSION = "1";
+
+    private static final String REQUEST_MAPPING = "org.springframework.web.bind.annotation.RequestMapping";
+    private static final String PATH_VARIABLE = "org.springframework.web.bind.annotation.PathVariable";
+    private static final String REQUEST_PARAM = "org.springframework.web.bind.annotation.RequestParam";
+    private static final String REQUEST_HEADER = "org.springframework.web.bind.annotation.RequestHeader";
+    private static final String API_IMPLICIT_PARAM = "io.swagger.annotations.ApiImplicitParam";
+
+    private static final Map<String, String> COMPOSED_MAPPINGS = new HashMap<>();
+
+    static {
+        COMPOSED_MAPPINGS.put("org.springframework.web.bind.annotation.GetMapping", "GET");
+        COMPOSED_MAPPINGS.put("org.springframework.web.bind.annotation.PostMapping", "POST");
+        COMPOSED_MAPPINGS.put("org.springframework.web.bind.annotation.PutMapping", "PUT");
+        COMPOSED_MAPPINGS.put("org.springframework.web.bind.annotation.DeleteMapping", "DELETE");
+        COMPOSED_MAPPINGS.put("org.springframework.web.bind.annotation.PatchMapping", "PATCH");
+    }
+
+    private static final String ACCEPT = "Accept";
+
+    private static final String CONTENT_TYPE = "Content-Type";
+
+    private static final Pattern PATH_VARIABLE_PATTERN = Pattern.compile("(\\{[^}]+\\})");
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.INTERFACE) {
+                    generate((TypeElement) element, roundEnv.getRootElements());
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement target, Set<? extends Element> sources) {
+        List<MethodModel> models = new ArrayList<>();
+        Set<String> configKeys = new HashSet<>();
+        for (ExecutableElement method : interfaceMethods(target, new ArrayList<ExecutableElement>(), new HashSet<Element>())) {
+            String configKey;
+            try {
+                configKey = configKey(target, method);
+                if (configKeys.add(configKey)) {
+                    models.add(parse(target, method, configKey, sources));
+                }
+            } catch (UnsupportedMethodException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "venus contract of " + method.getSimpleName() + " is resolved at runtime: " + e.getMessage(), method);
+            }
+        }
+
+        String name = LOCATION + processingEnv.getElementUtils().getBinaryName(target) + ".properties";
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", name, target);
+            try (Writer writer = new java.io.OutputStreamWriter(file.openOutputStream(), StandardCharsets.ISO_8859_1)) {
+                write(writer, models);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "could not write venus contract " + name + ": " + e.getMessage(), target);
+        }
+    }
+
+    /**
+     * 与 Class.getMethods() 一致, 包含继承的接口方法, 不含 static 和 default 方法
+     */
+    private List<ExecutableElement> interfaceMethods(TypeElement type, List<ExecutableElement> methods, Set<Element> visited) {
+        if (!visited.add(type)) {
+            return methods;
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.STATIC) && !method.getModifiers().contains(Modifier.DEFAULT)) {
+                methods.add(method);
+            }
+        }
+        for (TypeMirror itf : type.getInterfaces()) {
+            interfaceMethods(asElement(itf), methods, visited);
+        }
+        return methods;
+    }
+
+    /**
+     * 与 Feign.configKey(Class, Method) 一致
+     */
+    private String configKey(TypeElement target, ExecutableElement method) throws UnsupportedMethodException {
+        ExecutableType type = (ExecutableType) processingEnv.getTypeUtils()
+                .asMemberOf((DeclaredType) target.asType(), method);
+        StringBuilder builder = new StringBuilder();
+        builder.append(target.getSimpleName()).append('#').append(method.getSimpleName()).append('(');
+        for (TypeMirror param : type.getParameterTypes()) {
+            builder.append(simpleName(param)).append(',');
+        }
+        if (!type.getParameterTypes().isEmpty()) {
+            builder.deleteCharAt(builder.length() - 1);
+        }
+        return builder.append(')').toString();
+    }
+
+    private String simpleName(TypeMirror type) throws UnsupportedMethodException {
+        switch (type.getKind()) {
+            case DECLARED:
+                return ((DeclaredType) type).asElement().getSimpleName().toString();
+            case ARRAY:
+                return simpleName(((ArrayType) type).getComponentType()) + "[]";
+            case TYPEVAR:
+                // feign 无法解析的类型变量按 Object 处理
+                return "Object";
+            default:
+                if (type.getKind().isPrimitive()) {
+                    return type.toString();
+                }
+                throw new UnsupportedMethodException("unresolvable parameter type " + type);
+        }
+    }
+
+    private MethodModel parse(TypeElement target, ExecutableElement method, String configKey,
+                              Set<? extends Element> sources) throws UnsupportedMethodException {
+        MethodModel model = new MethodModel(configKey);
+
+        // VenusBaseContract: 类上的 path
+        List<? extends TypeMirror> interfaces = target.getInterfaces();
+        if (interfaces.size() == 1) {
+            processClassPath(model, asElement(interfaces.get(0)));
+        }
+        processClassPath(model, target);
+
+        // VenusSpringMvcContract.processAnnotationOnMethod
+        AnnotationMirror mapping = null;
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            String annotationType = qualifiedName(annotation);
+            if (REQUEST_MAPPING.equals(annotationType) || COMPOSED_MAPPINGS.containsKey(annotationType)) {
+                if (mapping != null) {
+                    throw new UnsupportedMethodException("more than one request mapping");
+                }
+                mapping = annotation;
+            } else if (isMetaAnnotated(annotation.getAnnotationType().asElement(), new HashSet<Element>())) {
+                throw new UnsupportedMethodException("custom request mapping " + annotationType);
+            }
+        }
+        if (mapping == null) {
+            throw new UnsupportedMethodException("not annotated with request mapping");
+        }
+        processMethodMapping(model, mapping);
+
+        // 参数注解
+        ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils()
+                .asMemberOf((DeclaredType) target.asType(), method);
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            TypeMirror rawType = processingEnv.getTypeUtils().erasure(parameter.asType());
+            boolean isHttpAnnotation = false;
+            for (AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+                String annotationType = qualifiedName(annotation);
+                if (PATH_VARIABLE.equals(annotationType)) {
+                    String name = parameterName(annotation, parameter, method, sources);
+                    model.nameParam(i, name);
+                    String varName = '{' + name + '}';
+                    if (model.url.indexOf(varName) < 0 && !containsValue(model.queries, varName)
+                            && !containsValue(model.headers, varName)) {
+                        model.formParams.add(name);
+                    }
+                    isHttpAnnotation = true;
+                } else if (REQUEST_PARAM.equals(annotationType)) {
+                    if (isMap(rawType)) {
+                        if (model.queryMapIndex != null) {
+                            throw new UnsupportedMethodException("more than one query map");
+                        }
+                        checkMapString(parameter.asType());
+                        model.queryMapIndex = i;
+                    } else {
+                        String name = parameterName(annotation, parameter, method, sources);
+                        model.nameParam(i, name);
+                        // RequestTemplate.query 会先移除再放入, 同名参数的顺序以最后一次为准
+                        model.queries.put(name, templated(model.queries.remove(name), name));
+                    }
+                    isHttpAnnotation = true;
+                } else if (REQUEST_HEADER.equals(annotationType)) {
+                    if (isMap(rawType)) {
+                        if (model.headerMapIndex != null) {
+                            throw new UnsupportedMethodException("more than one header map");
+                        }
+                        checkMapString(parameter.asType());
+                        model.headerMapIndex = i;
+                    } else {
+                        String name = parameterName(annotation, parameter, method, sources);
+                        model.nameParam(i, name);
+                        model.headers.put(name, templated(model.headers.get(name), name));
+                    }
+                    isHttpAnnotation = true;
+                }
+            }
+            if (isHttpAnnotation) {
+                model.httpParams.add(i);
+            }
+            if (isType(rawType, "java.net.URI")) {
+                model.urlIndex = i;
+            } else if (!isHttpAnnotation) {
+                if (model.bodyIndex != null) {
+                    throw new UnsupportedMethodException("too many body parameters");
+                }
+                if (methodType.getParameterTypes().get(i).getKind() == TypeKind.ERROR) {
+                    throw new UnsupportedMethodException("unresolvable body type");
+                }
+                model.bodyIndex = i;
+            }
+        }
+
+        // VenusSpringMvcContract.parseAndValidateMetadata: 类上的 produces consumes headers
+        AnnotationMirror classMapping = findClassMapping(target, new HashSet<Element>());
+        if (classMapping != null) {
+            if (!model.headers.containsKey(ACCEPT)) {
+                processProduces(model, classMapping);
+            }
+            if (!model.headers.containsKey(CONTENT_TYPE)) {
+                processConsumes(model, classMapping);
+            }
+            processHeaders(model, classMapping);
+        }
+
+        // 处理path value含有正则以及path value不存在方法参数的问题
+        String rawUrl = model.url.toString();
+        String url = rawUrl;
+        List<String> pathVariables = new ArrayList<>();
+        Matcher matcher = PATH_VARIABLE_PATTERN.matcher(rawUrl);
+        while (matcher.find()) {
+            String pathVariable = matcher.group();
+            int endIndex = pathVariable.indexOf(":");
+            if (endIndex != -1) {
+                String rawPathVariable = pathVariable.substring(1, endIndex);
+                pathVariables.add(rawPathVariable);
+                url = url.replace(pathVariable, "{" + rawPathVariable + "}");
+            } else {
+                pathVariables.add(pathVariable.substring(1, pathVariable.length() - 1));
+            }
+        }
+        model.rawUrl = rawUrl;
+        model.resolvedUrl = rawUrl;
+        for (String pathVariable : pathVariables) {
+            if (!model.hasPathVariable(pathVariable)) {
+                url = url.replace("{" + pathVariable + "}", defaultValue(method, pathVariable));
+                model.resolvedUrl = url;
+            }
+        }
+        if (model.resolvedUrl.indexOf('?') >= 0) {
+            throw new UnsupportedMethodException("query in default value " + model.resolvedUrl);
+        }
+        return model;
+    }
+
+    private void processClassPath(MethodModel model, TypeElement type) throws UnsupportedMethodException {
+        if (!type.getInterfaces().isEmpty()) {
+            return;
+        }
+        AnnotationMirror mapping = null;
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            if (REQUEST_MAPPING.equals(qualifiedName(annotation))) {
+                mapping = annotation;
+            } else if (isMetaAnnotated(annotation.getAnnotationType().asElement(), new HashSet<Element>())) {
+                throw new UnsupportedMethodException("custom request mapping on " + type.getSimpleName());
+            }
+        }
+        if (mapping == null) {
+            return;
+        }
+        List<String> paths = paths(mapping);
+        if (!paths.isEmpty()) {
+            String pathValue = paths.get(0);
+            if (pathValue.isEmpty() || pathValue.startsWith("http")) {
+                throw new UnsupportedMethodException("unsupported class path " + pathValue);
+            }
+            checkStatic(pathValue);
+            if (!pathValue.startsWith("/")) {
+                pathValue = "/" + pathValue;
+            }
+            model.url.insert(0, pathValue);
+        }
+    }
+
+    private void processMethodMapping(MethodModel model, AnnotationMirror mapping) throws UnsupportedMethodException {
+        // HTTP Method
+        String httpMethod = COMPOSED_MAPPINGS.get(qualifiedName(mapping));
+        if (httpMethod == null) {
+            List<String> methods = strings(mapping, "method");
+            if (methods.size() > 1) {
+                throw new UnsupportedMethodException("more than one http method");
+            }
+            httpMethod = methods.isEmpty() ? "GET" : methods.get(0);
+        }
+        model.method = httpMethod;
+
+        // path
+        List<String> paths = paths(mapping);
+        if (paths.size() > 1) {
+            throw new UnsupportedMethodException("more than one path");
+        }
+        if (paths.size() == 1 && !paths.get(0).isEmpty()) {
+            String pathValue = paths.get(0);
+            checkStatic(pathValue);
+            if (pathValue.indexOf('?') >= 0) {
+                throw new UnsupportedMethodException("query in path " + pathValue);
+            }
+            if (!pathValue.startsWith("/")) {
+                pathValue = "/" + pathValue;
+            }
+            model.url.append(pathValue);
+        }
+
+        processProduces(model, mapping);
+        processConsumes(model, mapping);
+        processHeaders(model, mapping);
+    }
+
+    private void processProduces(MethodModel model, AnnotationMirror mapping) {
+        List<String> produces = strings(mapping, "produces");
+        if (!produces.isEmpty() && !produces.get(0).isEmpty()) {
+            model.headers.put(ACCEPT, new ArrayList<>(Collections.singletonList(produces.get(0))));
+        }
+    }
+
+    private void processConsumes(MethodModel model, AnnotationMirror mapping) {
+        List<String> consumes = strings(mapping, "consumes");
+        if (!consumes.isEmpty() && !consumes.get(0).isEmpty()) {
+            model.headers.put(CONTENT_TYPE, new ArrayList<>(Collections.singletonList(consumes.get(0))));
+        }
+    }
+
+    private void processHeaders(MethodModel model, AnnotationMirror mapping) throws UnsupportedMethodException {
+        for (String header : strings(mapping, "headers")) {
+            int index = header.indexOf('=');
+            if (!header.contains("!=") && index >= 0) {
+                checkStatic(header);
+                model.headers.put(header.substring(0, index),
+                        new ArrayList<>(Collections.singletonList(header.substring(index + 1).trim())));
+            }
+        }
+    }
+
+    /**
+     * 与 AnnotatedElementUtils.findMergedAnnotation 的查找顺序一致: 先类本身, 再依次深度优先查找接口
+     */
+    private AnnotationMirror findClassMapping(TypeElement type, Set<Element> visited) throws UnsupportedMethodException {
+        if (!visited.add(type)) {
+            return null;
+        }
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            if (REQUEST_MAPPING.equals(qualifiedName(annotation))) {
+                return annotation;
+            } else if (isMetaAnnotated(annotation.getAnnotationType().asElement(), new HashSet<Element>())) {
+                throw new UnsupportedMethodException("custom request mapping on " + type.getSimpleName());
+            }
+        }
+        for (TypeMirror itf : type.getInterfaces()) {
+            AnnotationMirror annotation = findClassMapping(asElement(itf), visited);
+            if (annotation != null) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private String defaultValue(ExecutableElement method, String pathVariable) throws UnsupportedMethodException {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            if (API_IMPLICIT_PARAM.equals(qualifiedName(annotation)) && pathVariable.equals(string(annotation, "name"))) {
+                return string(annotation, "allowableValues").split(",")[0].trim();
+            }
+        }
+        throw new UnsupportedMethodException("no default value for " + pathVariable);
+    }
+
+    private String parameterName(AnnotationMirror annotation, VariableElement parameter, ExecutableElement method,
+                                 Set<? extends Element> sources) throws UnsupportedMethodException {
+        String value = string(annotation, "value");
+        if (!value.isEmpty()) {
+            return value;
+        }
+        if (!string(annotation, "name").isEmpty()) {
+            throw new UnsupportedMethodException("name attribute without value on " + parameter.getSimpleName());
+        }
+        // 只有源码中的接口才能拿到真实的参数名
+        if (!isSource(method, sources)) {
+            throw new UnsupportedMethodException("parameter name of " + parameter.getSimpleName() + " unavailable");
+        }
+        return parameter.getSimpleName().toString();
+    }
+
+    private boolean isSource(Element element, Set<? extends Element> sources) {
+        Element current = element;
+        while (current != null && current.getKind() != ElementKind.PACKAGE) {
+            if (sources.contains(current)) {
+                return true;
+            }
+            current = current.getEnclosingElement();
+        }
+        return false;
+    }
+
+    private boolean isMetaAnnotated(Element annotationType, Set<Element> visited) {
+        if (!visited.add(annotationType)) {
+            return false;
+        }
+        for (AnnotationMirror meta : annotationType.getAnnotationMirrors()) {
+            if (REQUEST_MAPPING.equals(qualifiedName(meta))
+                    || isMetaAnnotated(meta.getAnnotationType().asElement(), visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isMap(TypeMirror rawType) {
+        TypeElement map = processingEnv.getElementUtils().getTypeElement("java.util.Map");
+        return processingEnv.getTypeUtils().isAssignable(rawType, processingEnv.getTypeUtils().erasure(map.asType()));
+    }
+
+    private boolean isType(TypeMirror rawType, String className) {
+        return rawType.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) rawType).asElement()).getQualifiedName().contentEquals(className);
+    }
+
+    /**
+     * 与 VenusBaseContract.checkMapString 一致, 运行时会失败的情况交给运行时报错
+     */
+    private void checkMapString(TypeMirror type) throws UnsupportedMethodException {
+        if (type.getKind() != TypeKind.DECLARED || ((DeclaredType) type).getTypeArguments().isEmpty()
+                || !isType(((DeclaredType) type).getTypeArguments().get(0), "java.lang.String")) {
+            throw new UnsupportedMethodException("map key must be a String");
+        }
+    }
+
+    private static void checkStatic(String value) throws UnsupportedMethodException {
+        if (value.contains("${")) {
+            throw new UnsupportedMethodException("placeholder " + value + " resolved at runtime");
+        }
+    }
+
+    private static boolean containsValue(Map<String, List<String>> map, String value) {
+        for (List<String> values : map.values()) {
+            if (values.contains(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> templated(List<String> values, String name) {
+        List<String> result = values == null ? new ArrayList<String>() : values;
+        result.add("{" + name + "}");
+        return result;
+    }
+
+    private TypeElement asElement(TypeMirror type) {
+        return (TypeElement) processingEnv.getTypeUtils().asElement(type);
+    }
+
+    private static String qualifiedName(AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private List<String> paths(AnnotationMirror mapping) {
+        List<String> values = strings(mapping, "value");
+        return values.isEmpty() ? strings(mapping, "path") : values;
+    }
+
+    private String string(AnnotationMirror annotation, String attribute) {
+        List<String> values = strings(annotation, attribute);
+        return values.isEmpty() ? "" : values.get(0);
+    }
+
+    private List<String> strings(AnnotationMirror annotation, String attribute) {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                Object value = entry.getValue().getValue();
+                if (value instanceof List) {
+                    for (Object element : (List<?>) value) {
+                        result.add(stringValue(((AnnotationValue) element).getValue()));
+                    }
+                } else {
+                    result.add(stringValue(value));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String stringValue(Object value) {
+        // 枚举值, 如 RequestMethod.GET
+        if (value instanceof VariableElement) {
+            return ((VariableElement) value).getSimpleName().toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private static void write(Writer writer, List<MethodModel> models) throws IOException {
+        writer.write("# Generated by VenusContractProcessor, do not edit\n");
+        property(writer, "version", VERSION);
+        property(writer, "methods", String.valueOf(models.size()));
+        for (int i = 0; i < models.size(); i++) {
+            MethodModel model = models.get(i);
+            String prefix = i + ".";
+            property(writer, prefix + "configKey", model.configKey);
+            property(writer, prefix + "method", model.method);
+            property(writer, prefix + "rawUrl", model.rawUrl);
+            property(writer, prefix + "url", model.resolvedUrl);
+            multiMap(writer, prefix + "header", model.headers);
+            multiMap(writer, prefix + "query", model.queries);
+            Map<String, List<String>> names = new LinkedHashMap<>();
+            for (Map.Entry<Integer, List<String>> entry : model.indexToName.entrySet()) {
+                names.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+            multiMap(writer, prefix + "indexToName", names);
+            list(writer, prefix + "formParam", model.formParams);
+            StringBuilder httpParams = new StringBuilder();
+            for (Integer index : model.httpParams) {
+                httpParams.append(httpParams.length() == 0 ? "" : ",").append(index);
+            }
+            property(writer, prefix + "httpParams", httpParams.toString());
+            index(writer, prefix + "urlIndex", model.urlIndex);
+            index(writer, prefix + "bodyIndex", model.bodyIndex);
+            index(writer, prefix + "headerMapIndex", model.headerMapIndex);
+            index(writer, prefix + "queryMapIndex", model.queryMapIndex);
+        }
+    }
+
+    private static void multiMap(Writer writer, String prefix, Map<String, List<String>> map) throws IOException {
+        property(writer, prefix + ".count", String.valueOf(map.size()));
+        int i = 0;
+        for (Map.Entry<String, List<String>> entry : map.entrySet()) {
+            property(writer, prefix + "." + i + ".name", entry.getKey());
+            list(writer, prefix + "." + i + ".value", entry.getValue());
+            i++;
+        }
+    }
+
+    private static void list(Writer writer, String prefix, List<String> values) throws IOException {
+        property(writer, prefix + ".count", String.valueOf(values.size()));
+        for (int i = 0; i < values.size(); i++) {
+            property(writer, prefix + "." + i, values.get(i));
+        }
+    }
+
+    private static void index(Writer writer, String key, Integer index) throws IOException {
+        if (index != null) {
+            property(writer, key, String.valueOf(index));
+        }
+    }
+
+    private static void property(Writer writer, String key, String value) throws IOException {
+        writer.write(escape(key, true));
+        writer.write('=');
+        writer.write(escape(value, false));
+        writer.write('\n');
+    }
+
+    /**
+     * 与 java.util.Properties#store 的转义规则一致
+     */
+    private static String escape(String value, boolean isKey) {
+        StringBuilder builder = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case ' ':
+                    builder.append(i == 0 || isKey ? "\\ " : " ");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\f':
+                    builder.append("\\f");
+                    break;
+                case '\\':
+                case '=':
+                case ':':
+                case '#':
+                case '!':
+                    builder.append('\\').append(c);
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static class MethodModel {
+        private final String configKey;
+        private String method;
+        private final StringBuilder url = new StringBuilder();
+        private String rawUrl;
+        private String resolvedUrl;
+        private final Map<String, List<String>> headers = new LinkedHashMap<>();
+        private final Map<String, List<String>> queries = new LinkedHashMap<>();
+        private final Map<Integer, List<String>> indexToName = new LinkedHashMap<>();
+        private final List<String> formParams = new ArrayList<>();
+        private final List<Integer> httpParams = new ArrayList<>();
+        private Integer urlIndex;
+        private Integer bodyIndex;
+        private Integer headerMapIndex;
+        private Integer queryMapIndex;
+
+        MethodModel(String configKey) {
+            this.configKey = configKey;
+        }
+
+        void nameParam(int index, String name) {
+            List<String> names = indexToName.get(index);
+            if (names == null) {
+                names = new ArrayList<>();
+                indexToName.put(index, names);
+            }
+            names.add(name);
+        }
+
+        boolean hasPathVariable(String pathVariable) {
+            for (List<String> names : indexToName.values()) {
+                if (names.contains(pathVariable)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class UnsupportedMethodException extends Exception {
+        UnsupportedMethodException(String message) {
+            super(message);
+        }
+    }
+}